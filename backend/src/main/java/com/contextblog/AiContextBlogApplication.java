@@ -2,8 +2,10 @@ package com.contextblog;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AiContextBlogApplication {
     public static void main(String[] args) {
         SpringApplication.run(AiContextBlogApplication.class, args);
@@ -0,0 +1,131 @@
+package com.contextblog.config;
+
+import com.contextblog.service.ai.AdaptiveConcurrencyLimiter;
+import com.contextblog.service.ai.ClientRateLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for the endpoints that call AI models ({@code ai.admission.paths}).
+ * 
+ * A request first takes a token from its client's bucket (per user, or per IP when
+ * anonymous), then a slot from the global adaptive concurrency limit. Either
+ * rejection is answered immediately with 429 and a {@code Retry-After} header,
+ * before the request occupies a thread for a model call. Runs after Spring
+ * Security, so the user is known.
+ */
+@Component
+public class AiAdmissionFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AiAdmissionFilter.class);
+    
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+    
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    
+    @Value("${ai.admission.paths:/api/ai/solve/**,/api/ai/analyze-image,/api/blogs/suggest/**,/api/blogs/analyze}")
+    private List<String> paths;
+    
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if ("OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+    
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+        long waitNanos = clientRateLimiter.tryAcquire(username, request.getRemoteAddr());
+        if (waitNanos > 0) {
+            logger.debug("Rate limited {} {} for {}", request.getMethod(), request.getRequestURI(),
+                    username != null ? username : request.getRemoteAddr());
+            reject(response, Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1))),
+                    "Too many AI requests, please try again later");
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            logger.debug("AI concurrency limit reached, rejected {} {}", request.getMethod(), request.getRequestURI());
+            reject(response, concurrencyLimiter.retryAfterSeconds(), "The AI service is busy, please try again shortly");
+            return;
+        }
+        
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streams hold their slot until the response completes
+                AtomicBoolean released = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release();
+                    }
+                    
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release();
+                    }
+                    
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release();
+                    }
+                    
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                    
+                    private void release() {
+                        if (released.compareAndSet(false, true)) {
+                            concurrencyLimiter.releaseWithoutSample();
+                        }
+                    }
+                });
+            } else {
+                concurrencyLimiter.release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), failed);
+            }
+        }
+    }
+    
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,53 @@
+package com.contextblog.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Flags requests that issue more SQL statements than the budget allows, which is
+ * how an N+1 regression (one query per row of a list) shows up. Every request's
+ * count is logged at DEBUG; requests over {@code blog.query-budget.max-statements}
+ * are logged at WARN. A budget of 0 disables the check. Tighter per-endpoint
+ * budgets for the list endpoints are enforced by ListEndpointQueryBudgetTest.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+    
+    @Autowired
+    private QueryCounter queryCounter;
+    
+    @Value("${blog.query-budget.max-statements:10}")
+    private int maxStatements;
+    
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
+            throws ServletException, IOException {
+        queryCounter.reset();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = queryCounter.count();
+            if (maxStatements > 0 && statements > maxStatements) {
+                logger.warn("{} {} issued {} SQL statements (budget {}), check for N+1 queries",
+                        request.getMethod(), request.getRequestURI(), statements, maxStatements);
+            } else {
+                logger.debug("{} {} issued {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+            }
+        }
+    }
+}
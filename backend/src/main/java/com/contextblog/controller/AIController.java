@@ -5,15 +5,33 @@ import com.contextblog.model.dto.AIImageAnalyzeResponse;
 import com.contextblog.model.dto.AISolveRequest;
 import com.contextblog.model.dto.AISolveResponse;
 import com.contextblog.service.OpenRouterService;
+import com.contextblog.service.ai.AdaptiveConcurrencyLimiter;
+import com.contextblog.service.ai.AiResponseCache;
+import com.contextblog.service.ai.ClientRateLimiter;
+import com.contextblog.service.ai.ModelHealthRegistry;
+import com.contextblog.service.ai.OpenRouterClient;
+import com.contextblog.service.ai.TokenStreamRelay;
+import com.contextblog.service.image.ImagePreprocessor;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * AI Controller
@@ -34,6 +52,31 @@ public class AIController {
     @Autowired
     private OpenRouterService openRouterService;
     
+    @Autowired
+    private AiResponseCache aiResponseCache;
+    
+    @Autowired
+    private ModelHealthRegistry modelHealthRegistry;
+    
+    @Autowired
+    private OpenRouterClient openRouterClient;
+    
+    @Autowired
+    private TokenStreamRelay tokenStreamRelay;
+    
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+    
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+    
+    // Any signed-in user can call the endpoints here, so the manual circuit reset is opt-in
+    @Value("${ai.circuit.manual-reset-enabled:false}")
+    private boolean manualResetEnabled;
+    
     /**
      * Solve a problem using AI
      * 
@@ -54,6 +97,22 @@ public class AIController {
         }
     }
     
+    /**
+     * Solve a problem using AI, streaming the answer as it is generated
+     * 
+     * Emits server-sent {@code token} events ({@code {"text": ...}}), then a
+     * {@code done} event, or an {@code error} event if the models failed.
+     * Closing the connection stops generation upstream.
+     * 
+     * @param request The problem/question to solve
+     * @return Event stream of answer tokens
+     */
+    @PostMapping(value = "/solve/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSolution(@Valid @RequestBody AISolveRequest request) {
+        return tokenStreamRelay.relay("Failed to solve problem",
+                onToken -> openRouterService.streamSolution(request.getQuestion(), onToken));
+    }
+    
     /**
      * Analyze an image using AI vision models
      * 
@@ -66,8 +125,42 @@ public class AIController {
      */
     @PostMapping("/analyze-image")
     public ResponseEntity<?> analyzeImage(@Valid @RequestBody AIImageAnalyzeRequest request, Authentication authentication) {
+        return imageAnalysisResponse(() -> openRouterService.analyzeImage(request.imageBase64()));
+    }
+    
+    /**
+     * Analyze an image uploaded as a multipart form field
+     * 
+     * @param image Image file in the {@code image} part
+     * @return AI-generated image summary/analysis
+     */
+    @PostMapping(value = "/analyze-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> analyzeImageUpload(@RequestParam(value = "image", required = false) MultipartFile image) {
+        if (image == null || image.isEmpty()) {
+            throw new RuntimeException("Image file is required");
+        }
+        return imageAnalysisResponse(() -> openRouterService.analyzeImage(image, image.getContentType()));
+    }
+    
+    /**
+     * Analyze an image sent as the raw request body ({@code image/*} or
+     * {@code application/octet-stream}), up to {@code ai.image.max-upload-size}
+     * 
+     * @return AI-generated image summary/analysis
+     */
+    @PostMapping(value = "/analyze-image", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public ResponseEntity<?> analyzeImageBody(HttpServletRequest request) throws IOException {
+        Path upload = imagePreprocessor.spool(request.getInputStream(), request.getContentLengthLong());
+        try {
+            return imageAnalysisResponse(() -> openRouterService.analyzeImage(new FileSystemResource(upload), request.getContentType()));
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+    
+    private ResponseEntity<?> imageAnalysisResponse(Supplier<String> analysis) {
         try {
-            String summary = openRouterService.analyzeImage(request.imageBase64());
+            String summary = analysis.get();
             AIImageAnalyzeResponse response = new AIImageAnalyzeResponse(summary, "google/gemini-2.0-flash-exp");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -76,5 +169,56 @@ public class AIController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    
+    /**
+     * Hit/miss counters of the AI response cache
+     * 
+     * @return Memory and disk tier statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(aiResponseCache.stats());
+    }
+    
+    /**
+     * In-flight and queued outbound requests per upstream host
+     */
+    @GetMapping("/http/stats")
+    public ResponseEntity<Map<String, Object>> getHttpStats() {
+        return ResponseEntity.ok(openRouterClient.stats());
+    }
+    
+    /**
+     * Current AI concurrency limit, slots in use and requests turned away with 429
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        Map<String, Object> stats = concurrencyLimiter.snapshot();
+        stats.put("rejectedRateLimited", clientRateLimiter.rejectedCount());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * Circuit state, rolling error rate and latency of every model seen so far
+     */
+    @GetMapping("/models/health")
+    public ResponseEntity<List<Map<String, Object>>> getModelHealth() {
+        return ResponseEntity.ok(modelHealthRegistry.snapshot());
+    }
+    
+    /**
+     * Closes the circuit of one model (or of all models when none is given),
+     * e.g. after a model that was reported missing has been re-enabled upstream.
+     * Answers 403 unless ai.circuit.manual-reset-enabled is set.
+     */
+    @PostMapping("/models/health/reset")
+    public ResponseEntity<?> resetModelHealth(@RequestParam(required = false) String model) {
+        if (!manualResetEnabled) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Manual circuit reset is disabled");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+        }
+        modelHealthRegistry.reset(model);
+        return ResponseEntity.ok(modelHealthRegistry.snapshot());
+    }
 }
-
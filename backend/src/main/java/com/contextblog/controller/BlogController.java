@@ -1,21 +1,32 @@
 package com.contextblog.controller;
 
 import com.contextblog.model.Blog;
-import com.contextblog.model.Comment;
-import com.contextblog.model.Like;
 import com.contextblog.model.dto.AnalyzeRequest;
 import com.contextblog.model.dto.AnalyzeResponse;
+import com.contextblog.model.dto.BlogCard;
+import com.contextblog.model.dto.BlogDetail;
+import com.contextblog.model.dto.BlogEnrichmentResponse;
+import com.contextblog.model.dto.BlogFeedPage;
 import com.contextblog.model.dto.BlogRequest;
+import com.contextblog.model.dto.BlogStats;
+import com.contextblog.model.dto.CommentPage;
 import com.contextblog.model.dto.CommentRequest;
+import com.contextblog.model.dto.CommentView;
+import com.contextblog.model.dto.LikeResponse;
+import com.contextblog.service.BlogEnrichmentService;
 import com.contextblog.service.BlogService;
-import com.contextblog.service.OpenRouterService;
+import com.contextblog.service.ai.TokenStreamRelay;
+import com.contextblog.service.news.NewsFeedService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -28,7 +39,13 @@ public class BlogController {
     private BlogService blogService;
     
     @Autowired
-    private OpenRouterService openRouterService;
+    private NewsFeedService newsFeedService;
+    
+    @Autowired
+    private TokenStreamRelay tokenStreamRelay;
+    
+    @Autowired
+    private BlogEnrichmentService blogEnrichmentService;
     
     @PostMapping
     public ResponseEntity<Blog> createBlog(@Valid @RequestBody BlogRequest request, Authentication authentication) {
@@ -37,40 +54,78 @@ public class BlogController {
         return ResponseEntity.ok(blog);
     }
     
+    // First page of /feed as a plain list; when more exist, the Link header points at the next page
     @GetMapping
-    public ResponseEntity<List<Blog>> getAllBlogs() {
-        return ResponseEntity.ok(blogService.getAllBlogs());
+    public ResponseEntity<List<BlogCard>> getAllBlogs() {
+        BlogFeedPage page = blogService.getFeed(null, null);
+        if (!page.isHasMore()) {
+            return ResponseEntity.ok(page.getItems());
+        }
+        String next = "</api/blogs/feed?cursor=" + page.getNextCursor() + ">; rel=\"next\"";
+        return ResponseEntity.ok().header(HttpHeaders.LINK, next).body(page.getItems());
+    }
+    
+    // Site-wide totals; use this instead of summing over /api/blogs, which returns one page
+    @GetMapping("/stats")
+    public ResponseEntity<BlogStats> getBlogStats() {
+        return ResponseEntity.ok(blogService.getBlogStats());
+    }
+    
+    @GetMapping("/feed")
+    public ResponseEntity<BlogFeedPage> getFeed(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(blogService.getFeed(cursor, size));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Blog> getBlogById(@PathVariable Long id) {
+    public ResponseEntity<BlogDetail> getBlogById(@PathVariable Long id) {
         try {
-            Blog blog = blogService.getBlogById(id);
+            BlogDetail blog = blogService.getBlogDetail(id);
             return ResponseEntity.ok(blog);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    @GetMapping("/{id}/enrichment")
+    public ResponseEntity<BlogEnrichmentResponse> getEnrichmentStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(blogEnrichmentService.getStatus(id));
+    }
+    
+    @GetMapping(value = "/{id}/enrichment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeEnrichment(@PathVariable Long id) {
+        return blogEnrichmentService.subscribe(id);
+    }
+    
     @GetMapping("/search")
-    public ResponseEntity<List<Blog>> searchBlogs(@RequestParam String keyword) {
-        return ResponseEntity.ok(blogService.searchBlogs(keyword));
+    public ResponseEntity<List<BlogCard>> searchBlogs(@RequestParam String keyword,
+                                                  @RequestParam(required = false) Integer page,
+                                                  @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(blogService.searchBlogs(keyword, page, size));
     }
     
     @GetMapping("/{id}/recommendations")
-    public ResponseEntity<List<Blog>> getRecommendedBlogs(@PathVariable Long id) {
+    public ResponseEntity<List<BlogCard>> getRecommendedBlogs(@PathVariable Long id) {
         return ResponseEntity.ok(blogService.getRecommendedBlogs(id));
     }
     
     @PostMapping("/{id}/like")
-    public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<LikeResponse> toggleLike(@PathVariable Long id, Authentication authentication) {
         String username = ((UserDetails) authentication.getPrincipal()).getUsername();
-        Like like = blogService.toggleLike(id, username);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("liked", like != null);
-        response.put("likeCount", blogService.getBlogById(id).getLikeCount());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(blogService.toggleLike(id, username));
+    }
+    
+    // Idempotent alternatives to the toggle: repeating a request does not flip the state back
+    @PutMapping("/{id}/like")
+    public ResponseEntity<LikeResponse> likeBlog(@PathVariable Long id, Authentication authentication) {
+        String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+        return ResponseEntity.ok(blogService.likeBlog(id, username));
+    }
+    
+    @DeleteMapping("/{id}/like")
+    public ResponseEntity<LikeResponse> unlikeBlog(@PathVariable Long id, Authentication authentication) {
+        String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+        return ResponseEntity.ok(blogService.unlikeBlog(id, username));
     }
     
     @GetMapping("/{id}/liked")
@@ -81,21 +136,23 @@ public class BlogController {
     }
     
     @PostMapping("/{id}/comments")
-    public ResponseEntity<Comment> addComment(@PathVariable Long id, 
-                                             @Valid @RequestBody CommentRequest request,
-                                             Authentication authentication) {
+    public ResponseEntity<CommentView> addComment(@PathVariable Long id, 
+                                                 @Valid @RequestBody CommentRequest request,
+                                                 Authentication authentication) {
         String username = ((UserDetails) authentication.getPrincipal()).getUsername();
-        Comment comment = blogService.addComment(id, request, username);
+        CommentView comment = blogService.addComment(id, request, username);
         return ResponseEntity.ok(comment);
     }
     
     @GetMapping("/{id}/comments")
-    public ResponseEntity<List<Comment>> getComments(@PathVariable Long id) {
-        return ResponseEntity.ok(blogService.getComments(id));
+    public ResponseEntity<CommentPage> getComments(@PathVariable Long id,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(blogService.getComments(id, cursor, size));
     }
     
     @GetMapping("/user/my-blogs")
-    public ResponseEntity<List<Blog>> getMyBlogs(Authentication authentication) {
+    public ResponseEntity<List<BlogCard>> getMyBlogs(Authentication authentication) {
         String username = ((UserDetails) authentication.getPrincipal()).getUsername();
         return ResponseEntity.ok(blogService.getUserBlogs(username));
     }
@@ -113,17 +170,18 @@ public class BlogController {
     }
     
     @GetMapping("/trending-tags")
-    public ResponseEntity<Map<String, Long>> getTrendingTags() {
-        return ResponseEntity.ok(blogService.getTrendingTags());
+    public ResponseEntity<Map<String, Long>> getTrendingTags(@RequestParam(required = false) String window,
+                                                             @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(blogService.getTrendingTags(window, limit));
     }
     
     @GetMapping("/{id}/ai-recommendations")
-    public ResponseEntity<List<Blog>> getAiRecommendedBlogs(@PathVariable Long id) {
+    public ResponseEntity<List<BlogCard>> getAiRecommendedBlogs(@PathVariable Long id) {
         return ResponseEntity.ok(blogService.getAiRecommendedBlogs(id));
     }
     
     @GetMapping("/trending")
-    public ResponseEntity<List<Blog>> getTrendingBlogs() {
+    public ResponseEntity<List<BlogCard>> getTrendingBlogs() {
         return ResponseEntity.ok(blogService.getTrendingBlogs());
     }
     
@@ -143,16 +201,20 @@ public class BlogController {
         }
     }
     
+    /**
+     * Streams the suggestion as server-sent {@code token} events, followed by {@code done} or {@code error}
+     */
+    @PostMapping(value = "/suggest/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAISuggestions(@Valid @RequestBody Map<String, String> request) {
+        String text = request.get("text");
+        String context = request.getOrDefault("context", "");
+        return tokenStreamRelay.relay("Failed to generate suggestion",
+                onToken -> blogService.streamAISuggestion(text, context, onToken));
+    }
+    
     @GetMapping("/news")
     public ResponseEntity<?> getNews(@RequestParam(defaultValue = "4") int count) {
-        try {
-            List<Map<String, String>> news = openRouterService.generateNews(count);
-            return ResponseEntity.ok(news);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Failed to fetch news: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+        return ResponseEntity.ok(newsFeedService.getNews(count));
     }
 }
 
@@ -1,6 +1,8 @@
 package com.contextblog.controller;
 
 import com.contextblog.model.Bookmark;
+import com.contextblog.model.dto.FollowStats;
+import com.contextblog.model.dto.UserPage;
 import com.contextblog.service.BookmarkService;
 import com.contextblog.service.FollowService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,13 +48,22 @@ public class UserController {
     }
     
     @GetMapping("/{userId}/followers")
-    public ResponseEntity<Map<String, Object>> getFollowerStats(@PathVariable Long userId) {
-        long followerCount = followService.getFollowerCount(userId);
-        long followingCount = followService.getFollowingCount(userId);
-        Map<String, Object> response = new HashMap<>();
-        response.put("followerCount", followerCount);
-        response.put("followingCount", followingCount);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<FollowStats> getFollowerStats(@PathVariable Long userId) {
+        return ResponseEntity.ok(followService.getFollowStats(userId));
+    }
+    
+    @GetMapping("/{userId}/followers/list")
+    public ResponseEntity<UserPage> getFollowers(@PathVariable Long userId,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(followService.getFollowers(userId, after, size));
+    }
+    
+    @GetMapping("/{userId}/following/list")
+    public ResponseEntity<UserPage> getFollowing(@PathVariable Long userId,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(followService.getFollowing(userId, after, size));
     }
     
     @PostMapping("/blogs/{blogId}/bookmark")
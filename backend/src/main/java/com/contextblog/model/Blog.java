@@ -1,5 +1,6 @@
 package com.contextblog.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -12,11 +13,20 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "blogs")
+@NamedEntityGraph(name = Blog.DETAIL_GRAPH, attributeNodes = {
+    @NamedAttributeNode("author"),
+    @NamedAttributeNode("tags")
+})
+@Table(name = "blogs", indexes = {
+    @Index(name = "idx_blogs_created_at_id", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Blog {
+    // Author and tags in the same query as the blog; likes and comments stay lazy
+    public static final String DETAIL_GRAPH = "Blog.detail";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -40,12 +50,13 @@ public class Blog {
     @JsonIgnoreProperties({"blogs", "likes", "comments", "password", "authorities", "accountNonExpired", "accountNonLocked", "credentialsNonExpired", "enabled"})
     private User author;
     
+    // Not serialized: clients get counts with the blog and page through comments separately
     @OneToMany(mappedBy = "blog", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnoreProperties({"blog", "user"})
+    @JsonIgnore
     private List<Like> likes;
     
     @OneToMany(mappedBy = "blog", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnoreProperties({"blog", "user"})
+    @JsonIgnore
     private List<Comment> comments;
     
     @CreationTimestamp
@@ -56,10 +67,33 @@ public class Blog {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
-    @Column(nullable = false)
+    // Only changed by BlogCounterService's batched increments; entity saves never write
+    // the counters, so a save of a stale copy cannot roll back concurrent likes
+    @Column(nullable = false, updatable = false)
     private Integer likeCount = 0;
     
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer commentCount = 0;
+    
+    // Engagement recorded in memory but not flushed to the columns yet
+    @Transient
+    @JsonIgnore
+    private long pendingLikes;
+    
+    @Transient
+    @JsonIgnore
+    private long pendingComments;
+    
+    // Null for blogs created before background enrichment existed; treated as COMPLETED
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EnrichmentStatus enrichmentStatus;
+    
+    public Integer getLikeCount() {
+        return (int) Math.max(0, likeCount + pendingLikes);
+    }
+    
+    public Integer getCommentCount() {
+        return (int) Math.max(0, commentCount + pendingComments);
+    }
 }
-
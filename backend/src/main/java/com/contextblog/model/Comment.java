@@ -9,7 +9,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+    @Index(name = "idx_comments_blog_created_at_id", columnList = "blog_id, createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,11 @@
+package com.contextblog.model;
+
+/**
+ * Progress of the background AI summary/tag generation for a blog.
+ * PENDING and FAILED blogs carry locally extracted summary and tags.
+ */
+public enum EnrichmentStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
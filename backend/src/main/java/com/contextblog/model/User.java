@@ -31,6 +31,14 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String password;
     
+    // Kept in step with the follows table by FollowService, in the same transaction;
+    // entity saves never write them
+    @Column(nullable = false, updatable = false)
+    private Integer followerCount = 0;
+    
+    @Column(nullable = false, updatable = false)
+    private Integer followingCount = 0;
+    
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL)
     private List<Blog> blogs;
     
@@ -1,6 +1,5 @@
 package com.contextblog.model.dto;
 
-import com.contextblog.model.Blog;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +12,6 @@ import java.util.List;
 public class AnalyzeResponse {
     private String summary;
     private List<String> tags;
-    private List<Blog> relatedBlogs;
+    private List<BlogCard> relatedBlogs;
 }
 
@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+/**
+ * The public part of a user shown next to blogs and comments.
+ */
+public record AuthorSummary(Long id, String username) {}
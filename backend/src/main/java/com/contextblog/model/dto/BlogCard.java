@@ -0,0 +1,19 @@
+package com.contextblog.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A blog as shown in lists: everything but the body. Only GET /api/blogs/{id}
+ * returns the full blog.
+ */
+public record BlogCard(
+    Long id,
+    String title,
+    String summary,
+    List<String> tags,
+    AuthorSummary author,
+    int likeCount,
+    int commentCount,
+    LocalDateTime createdAt
+) {}
@@ -0,0 +1,24 @@
+package com.contextblog.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The columns of a {@link BlogCard} that live in the blogs table; tags are
+ * loaded separately for a whole page of rows.
+ */
+public record BlogCardRow(
+    Long id,
+    String title,
+    String summary,
+    Long authorId,
+    String authorUsername,
+    Integer likeCount,
+    Integer commentCount,
+    LocalDateTime createdAt
+) {
+    public BlogCard toCard(List<String> tags, int likeCount, int commentCount) {
+        return new BlogCard(id, title, summary, tags, new AuthorSummary(authorId, authorUsername),
+                likeCount, commentCount, createdAt);
+    }
+}
@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+/**
+ * Stored like and comment counts of a blog, without the deltas not flushed yet.
+ */
+public record BlogCounts(Integer likeCount, Integer commentCount) {}
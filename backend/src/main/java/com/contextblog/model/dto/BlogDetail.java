@@ -0,0 +1,23 @@
+package com.contextblog.model.dto;
+
+import com.contextblog.model.EnrichmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full blog as returned by GET /api/blogs/{id}.
+ */
+public record BlogDetail(
+    Long id,
+    String title,
+    String content,
+    String summary,
+    List<String> tags,
+    AuthorSummary author,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    int likeCount,
+    int commentCount,
+    EnrichmentStatus enrichmentStatus
+) {}
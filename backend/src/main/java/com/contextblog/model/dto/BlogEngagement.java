@@ -0,0 +1,8 @@
+package com.contextblog.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored like and comment counts of a blog, as ranked by the trending leaderboard.
+ */
+public record BlogEngagement(Long id, LocalDateTime createdAt, Integer likeCount, Integer commentCount) {}
@@ -0,0 +1,12 @@
+package com.contextblog.model.dto;
+
+import com.contextblog.model.EnrichmentStatus;
+
+import java.util.List;
+
+public record BlogEnrichmentResponse(
+    Long blogId,
+    EnrichmentStatus status,
+    String summary,
+    List<String> tags
+) {}
@@ -0,0 +1,17 @@
+package com.contextblog.model.dto;
+
+import java.util.Map;
+
+/**
+ * Site-wide numbers for the admin and social pages, computed over every blog
+ * rather than over one feed page.
+ */
+public record BlogStats(
+    long totalBlogs,
+    long totalUsers,
+    long totalAuthors,
+    long totalLikes,
+    long totalComments,
+    long blogsThisWeek,
+    Map<String, Long> topTags
+) {}
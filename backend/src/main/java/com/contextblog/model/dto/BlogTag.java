@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+/**
+ * One tag of one blog.
+ */
+public record BlogTag(Long blogId, String tag) {}
@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+/**
+ * Table-wide blog aggregates: number of blogs and distinct authors, and the sums of the stored counters.
+ */
+public record BlogTotals(Long blogs, Long authors, Long likes, Long comments) {}
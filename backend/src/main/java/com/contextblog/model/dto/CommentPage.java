@@ -0,0 +1,16 @@
+package com.contextblog.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentPage {
+    private List<CommentView> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
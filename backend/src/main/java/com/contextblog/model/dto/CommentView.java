@@ -0,0 +1,18 @@
+package com.contextblog.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A comment as returned by the API; {@code user} carries only the author's id and name.
+ */
+public record CommentView(
+    Long id,
+    String content,
+    AuthorSummary user,
+    LocalDateTime createdAt
+) {
+    // For JPQL constructor expressions, which cannot build the nested author
+    public CommentView(Long id, String content, Long userId, String username, LocalDateTime createdAt) {
+        this(id, content, new AuthorSummary(userId, username), createdAt);
+    }
+}
@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+public record LikeResponse(
+    boolean liked,
+    int likeCount
+) {}
@@ -0,0 +1,6 @@
+package com.contextblog.model.dto;
+
+/**
+ * Number of blogs carrying a tag.
+ */
+public record TagCount(String tag, Long count) {}
@@ -0,0 +1,8 @@
+package com.contextblog.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of blogs carrying a tag that were created at the same instant.
+ */
+public record TagCreatedCount(String tag, LocalDateTime createdAt, Long count) {}
@@ -0,0 +1,19 @@
+package com.contextblog.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Users ordered by id; pass {@code nextCursor} as {@code ?after=} for the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+    private List<AuthorSummary> items;
+    private Long nextCursor;
+    private boolean hasMore;
+}
@@ -1,23 +1,99 @@
 package com.contextblog.repository;
 
 import com.contextblog.model.Blog;
+import com.contextblog.model.EnrichmentStatus;
+import com.contextblog.model.dto.BlogCardRow;
+import com.contextblog.model.dto.BlogCounts;
+import com.contextblog.model.dto.BlogEngagement;
+import com.contextblog.model.dto.BlogTag;
+import com.contextblog.model.dto.BlogTotals;
+import com.contextblog.model.dto.TagCount;
+import com.contextblog.model.dto.TagCreatedCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BlogRepository extends JpaRepository<Blog, Long> {
-    List<Blog> findByAuthorIdOrderByCreatedAtDesc(Long authorId);
+    @Override
+    @EntityGraph(Blog.DETAIL_GRAPH)
+    Optional<Blog> findById(Long id);
     
-    @Query("SELECT b FROM Blog b WHERE b.title LIKE %:keyword% OR b.content LIKE %:keyword% OR EXISTS (SELECT t FROM b.tags t WHERE t LIKE %:keyword%)")
-    List<Blog> searchBlogs(@Param("keyword") String keyword);
+    // Card projections for list endpoints. Neither the body nor any association is loaded; tags come from findTagsByBlogIds.
+    String CARD_COLUMNS = "SELECT new com.contextblog.model.dto.BlogCardRow(b.id, b.title, b.summary, a.id, a.username, " +
+                          "b.likeCount, b.commentCount, b.createdAt) FROM Blog b JOIN b.author a ";
     
-    List<Blog> findAllByOrderByCreatedAtDesc();
+    // Keyset feed: first page, then everything strictly older than the (createdAt, id) cursor.
+    // Both queries walk idx_blogs_created_at_id, so the cost depends on the page size, not the table size.
+    @Query(CARD_COLUMNS + "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BlogCardRow> findFeedFirstPage(Pageable pageable);
+    
+    @Query(CARD_COLUMNS + "WHERE b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id) ORDER BY b.createdAt DESC, b.id DESC")
+    List<BlogCardRow> findFeedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @Query(CARD_COLUMNS + "WHERE b.id IN :ids")
+    List<BlogCardRow> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(CARD_COLUMNS + "WHERE a.username = :username ORDER BY b.createdAt DESC")
+    List<BlogCardRow> findCardsByAuthorUsername(@Param("username") String username);
+    
+    // Tags of a page of cards, one query instead of one per blog
+    @Query("SELECT new com.contextblog.model.dto.BlogTag(b.id, t) FROM Blog b JOIN b.tags t WHERE b.id IN :ids")
+    List<BlogTag> findTagsByBlogIds(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT b FROM Blog b WHERE b.id IN (SELECT l.blog.id FROM Like l GROUP BY l.blog.id ORDER BY COUNT(l) DESC)")
     List<Blog> findMostLikedBlogs();
+    
+    // Id-ordered batches for (re)building in-memory indexes without loading the whole table.
+    // Tags are not joined (that would page in memory); they are batch-fetched per batch instead.
+    @EntityGraph(attributePaths = "author")
+    @Query("SELECT b FROM Blog b WHERE b.id > :afterId ORDER BY b.id")
+    List<Blog> findBatchAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT MAX(b.id) FROM Blog b")
+    Long findMaxId();
+    
+    long countByIdLessThanEqual(Long id);
+    
+    // Aggregates for GET /api/blogs/stats; the counters are the stored values, without unflushed deltas
+    @Query("SELECT new com.contextblog.model.dto.BlogTotals(COUNT(b), COUNT(DISTINCT b.author.id), " +
+           "CAST(COALESCE(SUM(b.likeCount), 0) AS Long), CAST(COALESCE(SUM(b.commentCount), 0) AS Long)) FROM Blog b")
+    BlogTotals findTotals();
+    
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+    
+    // Seeds the trending-tags counter's all-time totals for blogs older than its hourly ring
+    @Query("SELECT new com.contextblog.model.dto.TagCount(t, COUNT(b)) " +
+           "FROM Blog b JOIN b.tags t WHERE b.createdAt < :before GROUP BY t")
+    List<TagCount> countTagsCreatedBefore(@Param("before") LocalDateTime before);
+    
+    // Seeds the hourly ring itself; hours are bucketed by the caller, since epoch arithmetic
+    // in SQL depends on the database session's time zone
+    @Query("SELECT new com.contextblog.model.dto.TagCreatedCount(t, b.createdAt, COUNT(b)) " +
+           "FROM Blog b JOIN b.tags t WHERE b.createdAt >= :since GROUP BY t, b.createdAt")
+    List<TagCreatedCount> countTagsByCreatedAtSince(@Param("since") LocalDateTime since);
+    
+    // Engagement of recent blogs for the trending leaderboard
+    @Query("SELECT new com.contextblog.model.dto.BlogEngagement(b.id, b.createdAt, b.likeCount, b.commentCount) " +
+           "FROM Blog b WHERE b.createdAt >= :since")
+    List<BlogEngagement> findEngagementSince(@Param("since") LocalDateTime since);
+    
+    // Stored counts only; BlogCounterService holds the deltas not flushed yet
+    @Query("SELECT new com.contextblog.model.dto.BlogCounts(b.likeCount, b.commentCount) FROM Blog b WHERE b.id = :id")
+    Optional<BlogCounts> findCountsById(@Param("id") Long id);
+    
+    // Stored like count only; BlogCounterService holds the deltas not flushed yet
+    @Query("SELECT b.likeCount FROM Blog b WHERE b.id = :id")
+    Optional<Integer> findLikeCountById(@Param("id") Long id);
+    
+    @Query("SELECT b.id FROM Blog b WHERE b.enrichmentStatus = :status ORDER BY b.id")
+    List<Long> findIdsByEnrichmentStatus(@Param("status") EnrichmentStatus status, Pageable pageable);
 }
-
@@ -1,6 +1,7 @@
 package com.contextblog.repository;
 
 import com.contextblog.model.Bookmark;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +12,7 @@ import java.util.Optional;
 public interface BookmarkRepository extends JpaRepository<Bookmark, Long> {
     Optional<Bookmark> findByUserIdAndBlogId(Long userId, Long blogId);
     boolean existsByUserIdAndBlogId(Long userId, Long blogId);
+    @EntityGraph(attributePaths = {"user", "blog", "blog.author"})
     List<Bookmark> findByUserIdOrderByCreatedAtDesc(Long userId);
 }
 
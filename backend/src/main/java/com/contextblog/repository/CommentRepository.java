@@ -1,14 +1,30 @@
 package com.contextblog.repository;
 
 import com.contextblog.model.Comment;
+import com.contextblog.model.dto.CommentView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByBlogIdOrderByCreatedAtDesc(Long blogId);
+    // Keyset pages of a blog's comments, newest first, walking idx_comments_blog_created_at_id
+    @Query("SELECT new com.contextblog.model.dto.CommentView(c.id, c.content, u.id, u.username, c.createdAt) " +
+           "FROM Comment c JOIN c.user u WHERE c.blog.id = :blogId ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentView> findPageByBlogId(@Param("blogId") Long blogId, Pageable pageable);
+    
+    @Query("SELECT new com.contextblog.model.dto.CommentView(c.id, c.content, u.id, u.username, c.createdAt) " +
+           "FROM Comment c JOIN c.user u " +
+           "WHERE c.blog.id = :blogId AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentView> findPageByBlogIdAfter(@Param("blogId") Long blogId, @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id, Pageable pageable);
+    
     long countByBlogId(Long blogId);
 }
 
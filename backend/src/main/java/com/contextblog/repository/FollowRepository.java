@@ -1,6 +1,7 @@
 package com.contextblog.repository;
 
 import com.contextblog.model.Follow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,12 +9,17 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FollowRepository extends JpaRepository<Follow, Long> {
+public interface FollowRepository extends JpaRepository<Follow, Long>, FollowRepositoryCustom {
     Optional<Follow> findByFollowerIdAndFollowingId(Long followerId, Long followingId);
     boolean existsByFollowerIdAndFollowingId(Long followerId, Long followingId);
     long countByFollowerId(Long followerId);
     long countByFollowingId(Long followingId);
+    
+    // Both users in the same query rather than one select per row
+    @EntityGraph(attributePaths = {"follower", "following"})
     List<Follow> findByFollowerId(Long followerId);
+    
+    @EntityGraph(attributePaths = {"follower", "following"})
     List<Follow> findByFollowingId(Long followingId);
 }
 
@@ -0,0 +1,19 @@
+package com.contextblog.repository;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Id-only reads of the follow graph that hand each id over as a primitive, so
+ * very large adjacency lists are never materialized as boxed values.
+ */
+public interface FollowRepositoryCustom {
+    /**
+     * Passes the ids of the user's followers to {@code consumer} in ascending order.
+     */
+    void forEachFollowerId(Long userId, LongConsumer consumer);
+    
+    /**
+     * Passes the ids of the users the user follows to {@code consumer} in ascending order.
+     */
+    void forEachFollowingId(Long userId, LongConsumer consumer);
+}
@@ -0,0 +1,37 @@
+package com.contextblog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Plain JDBC, reading each id with {@code getLong} as the rows stream in.
+ */
+public class FollowRepositoryCustomImpl implements FollowRepositoryCustom {
+    
+    private static final String FOLLOWER_IDS =
+            "SELECT follower_id FROM follows WHERE following_id = ? ORDER BY follower_id";
+    
+    private static final String FOLLOWING_IDS =
+            "SELECT following_id FROM follows WHERE follower_id = ? ORDER BY following_id";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void forEachFollowerId(Long userId, LongConsumer consumer) {
+        forEachId(FOLLOWER_IDS, userId, consumer);
+    }
+    
+    @Override
+    public void forEachFollowingId(Long userId, LongConsumer consumer) {
+        forEachId(FOLLOWING_IDS, userId, consumer);
+    }
+    
+    private void forEachId(String sql, Long userId, LongConsumer consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getLong(1));
+        jdbcTemplate.query(sql, handler, userId);
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface LikeRepository extends JpaRepository<Like, Long> {
+public interface LikeRepository extends JpaRepository<Like, Long>, LikeRepositoryCustom {
     Optional<Like> findByUserIdAndBlogId(Long userId, Long blogId);
     boolean existsByUserIdAndBlogId(Long userId, Long blogId);
     long countByBlogId(Long blogId);
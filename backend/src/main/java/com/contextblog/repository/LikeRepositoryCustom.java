@@ -0,0 +1,17 @@
+package com.contextblog.repository;
+
+/**
+ * Single-statement, idempotent like writes. Both methods identify the user by
+ * username, so no separate user lookup is needed.
+ */
+public interface LikeRepositoryCustom {
+    /**
+     * @return true if a like was added, false if the user had already liked the blog
+     */
+    boolean insertIfAbsent(String username, Long blogId);
+    
+    /**
+     * @return true if a like was removed, false if there was none
+     */
+    boolean deleteIfPresent(String username, Long blogId);
+}
@@ -0,0 +1,39 @@
+package com.contextblog.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Plain JDBC on the transaction's connection: a lost race on the unique
+ * (user_id, blog_id) constraint is then just a failed statement, which MySQL and
+ * H2 do not escalate to a transaction rollback, instead of a persistence
+ * exception that marks the whole transaction rollback-only.
+ */
+public class LikeRepositoryCustomImpl implements LikeRepositoryCustom {
+    
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO likes (user_id, blog_id) SELECT u.id, ? FROM users u WHERE u.username = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM likes l WHERE l.user_id = u.id AND l.blog_id = ?)";
+    
+    private static final String DELETE_IF_PRESENT =
+            "DELETE FROM likes WHERE blog_id = ? AND user_id = (SELECT u.id FROM users u WHERE u.username = ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public boolean insertIfAbsent(String username, Long blogId) {
+        try {
+            return jdbcTemplate.update(INSERT_IF_ABSENT, blogId, username, blogId) > 0;
+        } catch (DuplicateKeyException e) {
+            // A concurrent request inserted the same like first
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean deleteIfPresent(String username, Long blogId) {
+        return jdbcTemplate.update(DELETE_IF_PRESENT, blogId, username) > 0;
+    }
+}
@@ -1,9 +1,16 @@
 package com.contextblog.repository;
 
 import com.contextblog.model.User;
+import com.contextblog.model.dto.AuthorSummary;
+import com.contextblog.model.dto.FollowStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +19,35 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    
+    // Empty for an unknown id
+    @Query("SELECT new com.contextblog.model.dto.FollowStats(CAST(u.followerCount AS Long), CAST(u.followingCount AS Long)) " +
+           "FROM User u WHERE u.id = :id")
+    Optional<FollowStats> findFollowCounts(@Param("id") Long id);
+    
+    // Floored at zero, so an unfollow can never drive a counter negative
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = GREATEST(u.followerCount + :delta, 0) WHERE u.id = :id")
+    int addToFollowerCount(@Param("id") Long id, @Param("delta") int delta);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = GREATEST(u.followingCount + :delta, 0) WHERE u.id = :id")
+    int addToFollowingCount(@Param("id") Long id, @Param("delta") int delta);
+    
+    // Each sum equals the number of follow rows while the counters are in step
+    @Query("SELECT COALESCE(SUM(u.followerCount), 0) FROM User u")
+    long sumFollowerCounts();
+    
+    @Query("SELECT COALESCE(SUM(u.followingCount), 0) FROM User u")
+    long sumFollowingCounts();
+    
+    // Rebuilds both counters of every user from the follows table
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = (SELECT COUNT(f) FROM Follow f WHERE f.following.id = u.id), " +
+           "u.followingCount = (SELECT COUNT(f) FROM Follow f WHERE f.follower.id = u.id)")
+    int recountFollows();
+    
+    @Query("SELECT new com.contextblog.model.dto.AuthorSummary(u.id, u.username) FROM User u WHERE u.id IN :ids")
+    List<AuthorSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 }
 
@@ -0,0 +1,99 @@
+package com.contextblog.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Principals of recently validated tokens, keyed by the token's signature.
+ * 
+ * A hit means the exact same token was already verified and its user loaded,
+ * so the request is authenticated without parsing the token or querying the
+ * users table. Each entry lives until its token expires, capped at
+ * {@code max-ttl-minutes} so that a removed account stops authenticating
+ * within that time. The cache is size-bounded (Caffeine's W-TinyLFU eviction).
+ * 
+ * Only an immutable copy of the user (name and authorities, no password hash)
+ * is cached, never the JPA entity.
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+    
+    @Value("${jwt.principal-cache.max-entries:10000}")
+    private long maxEntries;
+    
+    @Value("${jwt.principal-cache.max-ttl-minutes:15}")
+    private long maxTtlMinutes;
+    
+    private Cache<String, Entry> cache;
+    
+    private record Entry(String token, UserDetails principal, long expiresAtMillis) {
+    }
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        long untilTokenExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, entry.expiresAtMillis() - System.currentTimeMillis()));
+                        return Math.min(untilTokenExpiry, TimeUnit.MINUTES.toNanos(maxTtlMinutes));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * Returns the cached principal for this token, or null.
+     */
+    public UserDetails get(String token) {
+        Entry entry = cache.getIfPresent(signatureOf(token));
+        if (entry == null) {
+            return null;
+        }
+        // The signature is the key; the full token must match too
+        if (!MessageDigest.isEqual(entry.token().getBytes(StandardCharsets.US_ASCII), token.getBytes(StandardCharsets.US_ASCII))
+                || entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.principal();
+    }
+    
+    public void put(String token, UserDetails userDetails, Date expiration) {
+        UserDetails principal = org.springframework.security.core.userdetails.User.withUsername(userDetails.getUsername())
+                .password("")
+                .authorities(userDetails.getAuthorities())
+                .accountExpired(!userDetails.isAccountNonExpired())
+                .accountLocked(!userDetails.isAccountNonLocked())
+                .credentialsExpired(!userDetails.isCredentialsNonExpired())
+                .disabled(!userDetails.isEnabled())
+                .build();
+        cache.put(signatureOf(token), new Entry(token, principal, expiration.getTime()));
+    }
+    
+    private static String signatureOf(String token) {
+        int lastDot = token.lastIndexOf('.');
+        return lastDot >= 0 ? token.substring(lastDot + 1) : token;
+    }
+}
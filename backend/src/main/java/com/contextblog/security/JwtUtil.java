@@ -1,54 +1,130 @@
 package com.contextblog.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ * 
+ * Keys and the parser are built once at startup; the parser is immutable and
+ * shared by all request threads, so verifying a token costs one parse and one
+ * HMAC, with no per-call key derivation.
+ * 
+ * Key rotation: {@code jwt.keys} may list additional keys as
+ * {@code kid:secret,kid:secret}. New tokens are then signed with
+ * {@code jwt.active-key-id} and carry it in the {@code kid} header, and tokens
+ * signed by any listed key verify until they expire, so a key can be retired by
+ * switching the active id first and removing it from the list one token
+ * lifetime later. Tokens without a {@code kid} are checked against
+ * {@code jwt.secret}, which keeps previously issued tokens valid.
+ */
 @Component
 public class JwtUtil {
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.keys:}")
+    private String additionalKeys;
+    
+    @Value("${jwt.active-key-id:}")
+    private String activeKeyId;
+    
+    private SecretKey defaultKey;
+    private final Map<String, SecretKey> keysById = new HashMap<>();
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        defaultKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        for (String entry : additionalKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("jwt.keys entries must look like kid:secret");
+            }
+            keysById.put(entry.substring(0, colon).trim(),
+                    Keys.hmacShaKeyFor(entry.substring(colon + 1).trim().getBytes(StandardCharsets.UTF_8)));
+        }
+        if (!activeKeyId.isEmpty() && !keysById.containsKey(activeKeyId)) {
+            throw new IllegalStateException("jwt.active-key-id '" + activeKeyId + "' is not listed in jwt.keys");
+        }
+        
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .build();
+        if (!keysById.isEmpty()) {
+            logger.info("JWT key rotation enabled: {} keys, signing with '{}'", keysById.size(),
+                    activeKeyId.isEmpty() ? "jwt.secret" : activeKeyId);
+        }
+    }
+    
+    private Key keyFor(String keyId) {
+        if (keyId == null) {
+            return defaultKey;
+        }
+        SecretKey key = keysById.get(keyId);
+        if (key == null) {
+            throw new JwtException("Unknown JWT key id: " + keyId);
+        }
+        return key;
+    }
+    
+    /**
+     * Verifies the signature and expiry and extracts everything the application
+     * needs; throws a JwtException for malformed, tampered or expired tokens.
+     */
+    public ParsedToken parse(String token) {
+        var jws = parser.parseClaimsJws(token);
+        Claims claims = jws.getBody();
+        return new ParsedToken(claims.getSubject(), claims.getIssuedAt(), claims.getExpiration(), jws.getHeader().getKeyId());
     }
     
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parse(token).subject();
     }
     
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parse(token).expiration();
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsResolver.apply(extractAllClaims(token));
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -57,18 +133,24 @@ public class JwtUtil {
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        var builder = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (activeKeyId.isEmpty()) {
+            return builder.signWith(defaultKey, SignatureAlgorithm.HS256).compact();
+        }
+        return builder.setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
+                .signWith(keysById.get(activeKeyId), SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parse(token), userDetails);
+    }
+    
+    public Boolean validateToken(ParsedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 }
-
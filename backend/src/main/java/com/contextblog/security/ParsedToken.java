@@ -0,0 +1,15 @@
+package com.contextblog.security;
+
+import java.util.Date;
+
+/**
+ * The parts of a verified JWT the application uses, extracted in a single parse.
+ * 
+ * @param keyId id of the key that signed the token, or null for the legacy single-secret key
+ */
+public record ParsedToken(String subject, Date issuedAt, Date expiration, String keyId) {
+    
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+}
@@ -1,5 +1,6 @@
 package com.contextblog.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -61,6 +62,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(request -> "OPTIONS".equals(request.getMethod())).permitAll() // Allow all OPTIONS preflight requests
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Completion of SSE streams; the original request was already authorized
                 .requestMatchers(new AntPathRequestMatcher("/api/auth/**")).permitAll()
                 .requestMatchers(new AntPathRequestMatcher("/api/blogs/analyze")).permitAll() // Allow AI analysis without auth
                 .requestMatchers(new AntPathRequestMatcher("/api/blogs/trending-tags")).permitAll() // Public trending tags
@@ -68,9 +70,12 @@ public class SecurityConfig {
                 .requestMatchers(new AntPathRequestMatcher("/api/blogs/trending")).permitAll() // Public trending blogs
                 .requestMatchers(
                     new AntPathRequestMatcher("/api/blogs"),
+                    new AntPathRequestMatcher("/api/blogs/feed"),
                     new AntPathRequestMatcher("/api/blogs/{id}"),
                     new AntPathRequestMatcher("/api/blogs/search"),
                     new AntPathRequestMatcher("/api/blogs/{id}/comments"),
+                    new AntPathRequestMatcher("/api/blogs/{id}/enrichment"),
+                    new AntPathRequestMatcher("/api/blogs/{id}/enrichment/stream"),
                     new AntPathRequestMatcher("/api/blogs/{id}/recommendations"),
                     new AntPathRequestMatcher("/api/blogs/{id}/ai-recommendations")
                 ).permitAll() // Public read access
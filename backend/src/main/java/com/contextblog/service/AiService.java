@@ -1,10 +1,12 @@
 package com.contextblog.service;
 
+import com.contextblog.service.similarity.BlogSimilarityService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * AI Service that uses OpenRouter API for generating summaries, tags, and recommendations
@@ -15,6 +17,9 @@ public class AiService {
     @Autowired
     private OpenRouterService openRouterService;
     
+    @Autowired
+    private BlogSimilarityService blogSimilarityService;
+    
     public String generateSummary(String content) {
         return openRouterService.generateSummary(content);
     }
@@ -23,25 +28,44 @@ public class AiService {
         return openRouterService.generateTags(title, content);
     }
     
-    public List<Long> findSimilarBlogs(Long blogId, String content, List<Long> allBlogIds) {
-        // Simple similarity based on content keywords
-        // In a production system, you might use embeddings or more sophisticated NLP
-        return allBlogIds.stream()
-                .filter(id -> !id.equals(blogId))
-                .limit(5)
-                .collect(Collectors.toList());
+    /**
+     * Throwing variants used by the background enrichment pipeline, which retries on its own.
+     */
+    public String requestSummary(String content) throws Exception {
+        return openRouterService.requestSummary(content);
+    }
+    
+    public List<String> requestTags(String title, String content) throws Exception {
+        return openRouterService.requestTags(title, content);
+    }
+    
+    public String fallbackSummary(String content) {
+        return openRouterService.fallbackSummary(content);
+    }
+    
+    public List<String> fallbackTags(String title, String content) {
+        return openRouterService.fallbackTags(title, content);
+    }
+    
+    public boolean isAiConfigured() {
+        return openRouterService.isConfigured();
     }
     
-    public List<Long> findRelatedBlogs(String title, String content, List<Long> allBlogIds) {
-        // Extract keywords from title and content for future semantic matching
-        // For now, return recent blogs (in production, use semantic similarity with embeddings)
-        // This is a placeholder - in production, use vector search or embeddings API
-        return allBlogIds.stream()
-                .limit(5)
-                .collect(Collectors.toList());
+    public List<Long> findSimilarBlogs(Long blogId, int limit) {
+        // Nearest neighbours of the stored embedding of this blog
+        return blogSimilarityService.findSimilar(blogId, limit);
+    }
+    
+    public List<Long> findRelatedBlogs(String title, String content, int limit) {
+        // Embeds the given text on the fly, so it also works for drafts that are not saved yet
+        return blogSimilarityService.findSimilar(title, content, limit);
     }
     
     public String generateSuggestion(String text, String context) {
         return openRouterService.generateSuggestion(text, context);
     }
+    
+    public CompletableFuture<Void> streamSuggestion(String text, String context, Consumer<String> onToken) {
+        return openRouterService.streamSuggestion(text, context, onToken);
+    }
 }
@@ -0,0 +1,75 @@
+package com.contextblog.service;
+
+import com.contextblog.model.EnrichmentStatus;
+import com.contextblog.model.dto.AuthorSummary;
+import com.contextblog.model.dto.BlogDetail;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of blog details for GET /api/blogs/{id}.
+ * 
+ * Entries hold only the parts of a blog that do not change with engagement;
+ * like and comment counts are read per request by the caller, so neither likes
+ * nor counter flushes evict anything. An entry is invalidated when enrichment
+ * rewrites summary and tags. Invalidation waits for a load of the same key in
+ * progress, so a value read before the change cannot be cached after it.
+ */
+@Component
+public class BlogDetailCache {
+    
+    @Value("${blog.detail-cache.max-entries:2000}")
+    private long maxEntries;
+    
+    @Value("${blog.detail-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+    
+    private Cache<Long, Content> cache;
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+    
+    /**
+     * @return the cached or loaded content, or null if the loader found no blog
+     */
+    public Content get(Long blogId, Function<Long, Content> loader) {
+        return cache.get(blogId, loader);
+    }
+    
+    public void invalidate(Long blogId) {
+        cache.invalidate(blogId);
+    }
+    
+    /**
+     * A blog's detail without its counts.
+     */
+    public record Content(
+        Long id,
+        String title,
+        String content,
+        String summary,
+        List<String> tags,
+        AuthorSummary author,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        EnrichmentStatus enrichmentStatus
+    ) {
+        public BlogDetail withCounts(int likeCount, int commentCount) {
+            return new BlogDetail(id, title, content, summary, tags, author, createdAt, updatedAt,
+                    likeCount, commentCount, enrichmentStatus);
+        }
+    }
+}
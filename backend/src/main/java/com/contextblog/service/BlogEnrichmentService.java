@@ -0,0 +1,248 @@
+package com.contextblog.service;
+
+import com.contextblog.model.Blog;
+import com.contextblog.model.EnrichmentStatus;
+import com.contextblog.model.dto.BlogEnrichmentResponse;
+import com.contextblog.repository.BlogRepository;
+import com.contextblog.service.search.BlogSearchService;
+import com.contextblog.service.trending.TagTrendService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background AI enrichment (summary and tags) for newly published blogs.
+ * 
+ * Blogs are saved with locally extracted summary/tags and status PENDING, then
+ * queued here. A fixed pool of workers drains a bounded queue; failed attempts
+ * are retried with exponential backoff from a scheduler so no worker sleeps.
+ * When the queue is full the blog is marked FAILED and keeps its local
+ * summary. Clients can poll the status or subscribe to a server-sent event.
+ */
+@Service
+public class BlogEnrichmentService {
+    private static final Logger logger = LoggerFactory.getLogger(BlogEnrichmentService.class);
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Autowired
+    private AiService aiService;
+    
+    @Autowired
+    private BlogSearchService blogSearchService;
+    
+    @Autowired
+    private TagTrendService tagTrendService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private BlogDetailCache blogDetailCache;
+    
+    @Value("${blog.enrichment.workers:2}")
+    private int workerCount;
+    
+    @Value("${blog.enrichment.queue-capacity:200}")
+    private int queueCapacity;
+    
+    @Value("${blog.enrichment.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${blog.enrichment.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+    
+    @Value("${blog.enrichment.subscribe-timeout-ms:120000}")
+    private long subscribeTimeoutMs;
+    
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService retryScheduler;
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "blog-enrichment-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blog-enrichment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Picks up blogs left PENDING by a previous run, as many as the queue can hold.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<Long> pending = blogRepository.findIdsByEnrichmentStatus(EnrichmentStatus.PENDING, PageRequest.of(0, queueCapacity));
+        if (!pending.isEmpty()) {
+            logger.info("Resuming AI enrichment for {} pending blogs", pending.size());
+            pending.forEach(this::submit);
+        }
+    }
+    
+    public void submit(Long blogId) {
+        submit(blogId, 1);
+    }
+    
+    public BlogEnrichmentResponse getStatus(Long blogId) {
+        return transactionTemplate.execute(status -> toResponse(blogRepository.findById(blogId)
+                .orElseThrow(() -> new RuntimeException("Blog not found"))));
+    }
+    
+    /**
+     * Emits a single "enrichment" event once the blog is no longer PENDING, then completes.
+     */
+    public SseEmitter subscribe(Long blogId) {
+        // Unknown blogs fail here, before anything is registered
+        BlogEnrichmentResponse current = getStatus(blogId);
+        SseEmitter emitter = new SseEmitter(subscribeTimeoutMs);
+        if (current.status() != EnrichmentStatus.PENDING) {
+            send(emitter, current);
+            return emitter;
+        }
+        
+        subscribers.compute(blogId, (id, emitters) -> {
+            List<SseEmitter> list = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        // Drops the blog's entry together with its last subscriber
+        Runnable unregister = () -> subscribers.computeIfPresent(blogId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(e -> unregister.run());
+        
+        // Checked again after registering: a completion racing with this call is never missed
+        try {
+            current = getStatus(blogId);
+        } catch (RuntimeException e) {
+            unregister.run();
+            throw e;
+        }
+        if (current.status() != EnrichmentStatus.PENDING) {
+            unregister.run();
+            send(emitter, current);
+        }
+        return emitter;
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // Unfinished blogs stay PENDING in the database and are resumed on the next start
+        retryScheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+    
+    private void submit(Long blogId, int attempt) {
+        try {
+            workers.execute(() -> enrich(blogId, attempt));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Enrichment queue full, keeping local summary and tags for blog {}", blogId);
+            complete(blogId, null, null, EnrichmentStatus.FAILED);
+        }
+    }
+    
+    private void enrich(Long blogId, int attempt) {
+        Blog blog = blogRepository.findById(blogId).orElse(null);
+        if (blog == null || blog.getEnrichmentStatus() != EnrichmentStatus.PENDING) {
+            return;
+        }
+        
+        try {
+            String summary = aiService.requestSummary(blog.getContent());
+            List<String> tags = aiService.requestTags(blog.getTitle(), blog.getContent());
+            complete(blogId, summary, tags, EnrichmentStatus.COMPLETED);
+        } catch (Exception e) {
+            if (attempt < maxAttempts) {
+                long delay = retryBackoffMs << (attempt - 1);
+                logger.warn("Enrichment attempt {} for blog {} failed ({}), retrying in {} ms", attempt, blogId, e.getMessage(), delay);
+                retryScheduler.schedule(() -> submit(blogId, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                logger.error("Enrichment for blog {} failed after {} attempts: {}", blogId, attempt, e.getMessage());
+                complete(blogId, null, null, EnrichmentStatus.FAILED);
+            }
+        }
+    }
+    
+    private void complete(Long blogId, String summary, List<String> tags, EnrichmentStatus status) {
+        BlogEnrichmentResponse response = transactionTemplate.execute(tx -> {
+            Blog blog = blogRepository.findById(blogId).orElse(null);
+            if (blog == null) {
+                return null;
+            }
+            List<String> previousTags = blog.getTags() != null ? new ArrayList<>(blog.getTags()) : List.of();
+            if (summary != null) {
+                blog.setSummary(summary);
+            }
+            if (tags != null) {
+                blog.setTags(new ArrayList<>(tags));
+            }
+            blog.setEnrichmentStatus(status);
+            blog = blogRepository.save(blog);
+            
+            if (tags != null) {
+                blogSearchService.index(blog);
+                tagTrendService.tagsReplaced(blog, previousTags);
+            }
+            return toResponse(blog);
+        });
+        
+        // After commit, so the next read of the detail sees the new summary and tags
+        blogDetailCache.invalidate(blogId);
+        
+        List<SseEmitter> emitters = subscribers.remove(blogId);
+        if (response != null && emitters != null) {
+            emitters.forEach(emitter -> send(emitter, response));
+        }
+    }
+    
+    private void send(SseEmitter emitter, BlogEnrichmentResponse response) {
+        try {
+            emitter.send(SseEmitter.event().name("enrichment").data(response));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+    
+    private BlogEnrichmentResponse toResponse(Blog blog) {
+        EnrichmentStatus status = blog.getEnrichmentStatus() != null ? blog.getEnrichmentStatus() : EnrichmentStatus.COMPLETED;
+        List<String> tags = blog.getTags() != null ? List.copyOf(blog.getTags()) : List.of();
+        return new BlogEnrichmentResponse(blog.getId(), status, blog.getSummary(), tags);
+    }
+}
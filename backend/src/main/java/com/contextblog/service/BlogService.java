@@ -2,24 +2,50 @@ package com.contextblog.service;
 
 import com.contextblog.model.Blog;
 import com.contextblog.model.Comment;
-import com.contextblog.model.Like;
+import com.contextblog.model.EnrichmentStatus;
 import com.contextblog.model.User;
+import com.contextblog.model.dto.AuthorSummary;
+import com.contextblog.model.dto.BlogCard;
+import com.contextblog.model.dto.BlogCardRow;
+import com.contextblog.model.dto.BlogCounts;
+import com.contextblog.model.dto.BlogDetail;
+import com.contextblog.model.dto.BlogFeedPage;
 import com.contextblog.model.dto.BlogRequest;
+import com.contextblog.model.dto.BlogStats;
+import com.contextblog.model.dto.BlogTag;
+import com.contextblog.model.dto.BlogTotals;
+import com.contextblog.model.dto.CommentPage;
 import com.contextblog.model.dto.CommentRequest;
+import com.contextblog.model.dto.CommentView;
+import com.contextblog.model.dto.LikeResponse;
 import com.contextblog.repository.BlogRepository;
 import com.contextblog.repository.CommentRepository;
 import com.contextblog.repository.LikeRepository;
 import com.contextblog.repository.UserRepository;
+import com.contextblog.service.counter.BlogCounterService;
+import com.contextblog.service.search.BlogSearchService;
+import com.contextblog.service.search.SearchHit;
+import com.contextblog.service.similarity.BlogSimilarityService;
+import com.contextblog.service.trending.TagTrendService;
+import com.contextblog.service.trending.TagWindow;
+import com.contextblog.service.trending.TrendingBlogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class BlogService {
+    private static final int TOP_TAGS_IN_STATS = 5;
+    
     @Autowired
     private BlogRepository blogRepository;
     
@@ -35,6 +61,45 @@ public class BlogService {
     @Autowired
     private AiService aiService;
     
+    @Autowired
+    private BlogSearchService blogSearchService;
+    
+    @Autowired
+    private BlogSimilarityService blogSimilarityService;
+    
+    @Autowired
+    private TagTrendService tagTrendService;
+    
+    @Autowired
+    private TrendingBlogService trendingBlogService;
+    
+    @Autowired
+    private BlogEnrichmentService blogEnrichmentService;
+    
+    @Autowired
+    private BlogCounterService blogCounterService;
+    
+    @Autowired
+    private CommentPageCache commentPageCache;
+    
+    @Autowired
+    private BlogDetailCache blogDetailCache;
+    
+    @Value("${blog.recommendations.limit:5}")
+    private int recommendationLimit;
+    
+    @Value("${blog.feed.default-page-size:20}")
+    private int defaultFeedPageSize;
+    
+    @Value("${blog.feed.max-page-size:100}")
+    private int maxFeedPageSize;
+    
+    @Value("${blog.comments.default-page-size:20}")
+    private int defaultCommentPageSize;
+    
+    @Value("${blog.comments.max-page-size:100}")
+    private int maxCommentPageSize;
+    
     public Blog createBlog(BlogRequest request, String username) {
         User author = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
@@ -44,98 +109,224 @@ public class BlogService {
         blog.setContent(request.getContent());
         blog.setAuthor(author);
         
-        // Generate AI summary and tags
-        blog.setSummary(aiService.generateSummary(request.getContent()));
-        blog.setTags(aiService.generateTags(request.getTitle(), request.getContent()));
+        // Publish right away with locally extracted summary and tags; the AI versions
+        // are filled in by the background enrichment pipeline
+        blog.setSummary(aiService.fallbackSummary(request.getContent()));
+        blog.setTags(aiService.fallbackTags(request.getTitle(), request.getContent()));
+        blog.setEnrichmentStatus(aiService.isAiConfigured() ? EnrichmentStatus.PENDING : EnrichmentStatus.COMPLETED);
         blog.setLikeCount(0);
         blog.setCommentCount(0);
         
-        return blogRepository.save(blog);
+        Blog saved = blogRepository.save(blog);
+        blogSearchService.index(saved);
+        blogSimilarityService.index(saved);
+        tagTrendService.blogCreated(saved);
+        trendingBlogService.blogCreated(saved);
+        if (saved.getEnrichmentStatus() == EnrichmentStatus.PENDING) {
+            blogEnrichmentService.submit(saved.getId());
+        }
+        return saved;
     }
     
-    public List<Blog> getAllBlogs() {
-        return blogRepository.findAllByOrderByCreatedAtDesc();
+    /**
+     * Totals over every blog, so pages that show site-wide numbers need not
+     * download the whole feed. Tag counts come from the trending-tags counter
+     * and users from a COUNT, so this is a handful of aggregate queries whatever
+     * the size of the tables.
+     */
+    public BlogStats getBlogStats() {
+        BlogTotals totals = blogRepository.findTotals();
+        long blogsThisWeek = blogRepository.countByCreatedAtGreaterThanEqual(LocalDateTime.now().minusDays(7));
+        return new BlogStats(totals.blogs(), userRepository.count(), totals.authors(), totals.likes(),
+                totals.comments(), blogsThisWeek, tagTrendService.getTrendingTags(TagWindow.ALL_TIME, TOP_TAGS_IN_STATS));
+    }
+    
+    /**
+     * Newest-first blog feed using keyset pagination on (createdAt, id).
+     * 
+     * One extra row is fetched to tell whether another page exists, so a request
+     * never holds more than size + 1 blogs regardless of how large the table is.
+     */
+    public BlogFeedPage getFeed(String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultFeedPageSize : Math.min(size, maxFeedPageSize);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        List<BlogCardRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = blogRepository.findFeedFirstPage(limit);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            rows = blogRepository.findFeedAfter(position.createdAt(), position.id(), limit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<BlogCard> items = toCards(hasMore ? rows.subList(0, pageSize) : rows);
+        String nextCursor = null;
+        if (hasMore) {
+            BlogCard last = items.get(items.size() - 1);
+            nextCursor = new FeedCursor(last.createdAt(), last.id()).encode();
+        }
+        return new BlogFeedPage(items, nextCursor, hasMore);
     }
     
     public Blog getBlogById(Long id) {
         return blogRepository.findById(id)
+                .map(blogCounterService::applyPending)
                 .orElseThrow(() -> new RuntimeException("Blog not found"));
     }
     
-    public List<Blog> searchBlogs(String keyword) {
-        return blogRepository.searchBlogs(keyword);
+    /**
+     * The blog as shown on its page. Title, body, tags and author come from
+     * {@link BlogDetailCache}; the counts are a primary-key lookup of the stored
+     * values plus the unflushed deltas, so engagement never evicts the entry.
+     */
+    public BlogDetail getBlogDetail(Long id) {
+        BlogDetailCache.Content content = blogDetailCache.get(id, this::loadDetail);
+        BlogCounts counts = content != null ? blogRepository.findCountsById(id).orElse(null) : null;
+        if (counts == null) {
+            // A deleted blog may still be cached
+            blogDetailCache.invalidate(id);
+            throw new RuntimeException("Blog not found");
+        }
+        return content.withCounts(
+                (int) Math.max(0, counts.likeCount() + blogCounterService.pendingLikes(id)),
+                (int) Math.max(0, counts.commentCount() + blogCounterService.pendingComments(id)));
     }
     
-    public List<Blog> getRecommendedBlogs(Long blogId) {
-        Blog blog = getBlogById(blogId);
-        List<Long> allBlogIds = blogRepository.findAll().stream()
-                .map(Blog::getId)
-                .filter(id -> id != null)
-                .collect(Collectors.toList());
-        
-        List<Long> similarIds = aiService.findSimilarBlogs(blogId, blog.getContent(), allBlogIds);
-        return blogRepository.findAllById(similarIds);
+    private BlogDetailCache.Content loadDetail(Long id) {
+        return blogRepository.findById(id)
+                .map(blog -> new BlogDetailCache.Content(blog.getId(), blog.getTitle(), blog.getContent(), blog.getSummary(),
+                        blog.getTags() != null ? List.copyOf(blog.getTags()) : List.of(),
+                        new AuthorSummary(blog.getAuthor().getId(), blog.getAuthor().getUsername()),
+                        blog.getCreatedAt(), blog.getUpdatedAt(), blog.getEnrichmentStatus()))
+                .orElse(null);
     }
     
-    public List<Blog> getAiRecommendedBlogs(Long blogId) {
-        Blog blog = getBlogById(blogId);
-        List<Long> allBlogIds = blogRepository.findAll().stream()
-                .map(Blog::getId)
-                .filter(id -> id != null && !id.equals(blogId))
-                .collect(Collectors.toList());
+    /**
+     * Ranked full-text search. The index returns ids in BM25 order; only the
+     * requested page of blogs is then loaded from the database.
+     */
+    public List<BlogCard> searchBlogs(String keyword, Integer page, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultFeedPageSize : Math.min(size, maxFeedPageSize);
+        int offset = (page == null || page < 0 ? 0 : page) * pageSize;
         
-        // Use AI service to find related blogs
-        List<Long> relatedIds = aiService.findRelatedBlogs(blog.getTitle(), blog.getContent(), allBlogIds);
-        return blogRepository.findAllById(relatedIds);
+        List<Long> ids = blogSearchService.search(keyword, offset, pageSize).stream()
+                .map(SearchHit::blogId)
+                .collect(Collectors.toList());
+        return findAllInOrder(ids);
     }
     
-    public Map<String, Long> getTrendingTags() {
-        List<Blog> allBlogs = blogRepository.findAll();
-        Map<String, Long> tagCounts = new HashMap<>();
-        
-        for (Blog blog : allBlogs) {
-            if (blog.getTags() != null) {
-                for (String tag : blog.getTags()) {
-                    tagCounts.put(tag, tagCounts.getOrDefault(tag, 0L) + 1);
-                }
-            }
+    private List<BlogCard> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BlogCardRow> byId = blogRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BlogCardRow::id, row -> row));
+        return toCards(ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Builds cards from CARD_COLUMNS rows, loading the tags of all of them in one query.
+     * Counts include likes and comments not flushed to the database yet.
+     */
+    private List<BlogCard> toCards(List<BlogCardRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(BlogCardRow::id).collect(Collectors.toList());
+        Map<Long, List<String>> tagsById = new HashMap<>();
+        for (BlogTag tag : blogRepository.findTagsByBlogIds(ids)) {
+            tagsById.computeIfAbsent(tag.blogId(), id -> new ArrayList<>()).add(tag.tag());
         }
         
-        // Sort by count and return top 10
-        return tagCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    Map.Entry::getValue,
-                    (e1, e2) -> e1,
-                    LinkedHashMap::new
-                ));
+        List<BlogCard> cards = new ArrayList<>(rows.size());
+        for (BlogCardRow row : rows) {
+            cards.add(row.toCard(tagsById.getOrDefault(row.id(), List.of()),
+                    (int) Math.max(0, row.likeCount() + blogCounterService.pendingLikes(row.id())),
+                    (int) Math.max(0, row.commentCount() + blogCounterService.pendingComments(row.id()))));
+        }
+        return cards;
+    }
+    
+    public List<BlogCard> getRecommendedBlogs(Long blogId) {
+        return findAllInOrder(aiService.findSimilarBlogs(requireIndexed(blogId), recommendationLimit));
     }
     
+    // Kept for the older /ai-recommendations route; both are served by the same similarity index
+    public List<BlogCard> getAiRecommendedBlogs(Long blogId) {
+        return getRecommendedBlogs(blogId);
+    }
+    
+    /**
+     * Blogs are embedded on creation, so the vector index doubles as an existence
+     * check; the database is only consulted (and the blog embedded) on a miss.
+     */
+    private Long requireIndexed(Long blogId) {
+        if (!blogSimilarityService.contains(blogId)) {
+            blogSimilarityService.index(getBlogById(blogId));
+        }
+        return blogId;
+    }
+    
+    public Map<String, Long> getTrendingTags(String window, Integer limit) {
+        TagWindow tagWindow = window == null || window.isBlank() ? TagWindow.ALL_TIME : TagWindow.fromCode(window);
+        return tagTrendService.getTrendingTags(tagWindow, limit == null ? 10 : limit);
+    }
+    
+    /**
+     * Idempotent like: liking twice (e.g. a double click) keeps one like. Costs one
+     * read of the stored count and one conditional insert; the returned count
+     * includes this like even though the counter is only bumped on commit.
+     */
     @Transactional
-    public Like toggleLike(Long blogId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        
-        Blog blog = getBlogById(blogId);
-        
-        Like existingLike = likeRepository.findByUserIdAndBlogId(user.getId(), blogId).orElse(null);
-        
-        if (existingLike != null) {
-            likeRepository.delete(existingLike);
-            blog.setLikeCount(Math.max(0, blog.getLikeCount() - 1));
-            blogRepository.save(blog);
-            return null;
-        } else {
-            Like like = new Like();
-            like.setUser(user);
-            like.setBlog(blog);
-            like = likeRepository.save(like);
-            blog.setLikeCount(blog.getLikeCount() + 1);
-            blogRepository.save(blog);
-            return like;
+    public LikeResponse likeBlog(Long blogId, String username) {
+        int stored = storedLikeCount(blogId);
+        boolean added = likeRepository.insertIfAbsent(username, blogId);
+        if (added) {
+            likeChanged(blogId, 1);
+        }
+        return new LikeResponse(true, currentLikeCount(blogId, stored, added ? 1 : 0));
+    }
+    
+    @Transactional
+    public LikeResponse unlikeBlog(Long blogId, String username) {
+        int stored = storedLikeCount(blogId);
+        boolean removed = likeRepository.deleteIfPresent(username, blogId);
+        if (removed) {
+            likeChanged(blogId, -1);
+        }
+        return new LikeResponse(false, currentLikeCount(blogId, stored, removed ? -1 : 0));
+    }
+    
+    @Transactional
+    public LikeResponse toggleLike(Long blogId, String username) {
+        int stored = storedLikeCount(blogId);
+        if (likeRepository.deleteIfPresent(username, blogId)) {
+            likeChanged(blogId, -1);
+            return new LikeResponse(false, currentLikeCount(blogId, stored, -1));
+        }
+        boolean added = likeRepository.insertIfAbsent(username, blogId);
+        if (added) {
+            likeChanged(blogId, 1);
         }
+        return new LikeResponse(true, currentLikeCount(blogId, stored, added ? 1 : 0));
+    }
+    
+    private int storedLikeCount(Long blogId) {
+        return blogRepository.findLikeCountById(blogId)
+                .orElseThrow(() -> new RuntimeException("Blog not found"));
+    }
+    
+    private int currentLikeCount(Long blogId, int stored, int delta) {
+        return (int) Math.max(0, stored + blogCounterService.pendingLikes(blogId) + delta);
+    }
+    
+    private void likeChanged(Long blogId, int delta) {
+        blogCounterService.likeChanged(blogId, delta);
+        trendingBlogService.likeChanged(blogId, delta);
     }
     
     public boolean isLiked(Long blogId, String username) {
@@ -144,7 +335,7 @@ public class BlogService {
         return likeRepository.existsByUserIdAndBlogId(user.getId(), blogId);
     }
     
-    public Comment addComment(Long blogId, CommentRequest request, String username) {
+    public CommentView addComment(Long blogId, CommentRequest request, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         
@@ -156,36 +347,53 @@ public class BlogService {
         comment.setBlog(blog);
         
         comment = commentRepository.save(comment);
-        blog.setCommentCount(blog.getCommentCount() + 1);
-        blogRepository.save(blog);
+        commentPageCache.invalidate(blogId);
+        blogCounterService.commentAdded(blogId);
+        trendingBlogService.commentAdded(blogId);
         
-        return comment;
+        return new CommentView(comment.getId(), comment.getContent(),
+                new AuthorSummary(user.getId(), user.getUsername()), comment.getCreatedAt());
     }
     
-    public List<Comment> getComments(Long blogId) {
-        return commentRepository.findByBlogIdOrderByCreatedAtDesc(blogId);
+    /**
+     * Newest-first comments of a blog, keyset-paginated like the blog feed. The
+     * first page at the default size is served from {@link CommentPageCache}.
+     */
+    public CommentPage getComments(Long blogId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultCommentPageSize : Math.min(size, maxCommentPageSize);
+        if ((cursor == null || cursor.isBlank()) && pageSize == defaultCommentPageSize) {
+            return commentPageCache.get(blogId, id -> loadComments(id, null, pageSize));
+        }
+        return loadComments(blogId, cursor, pageSize);
     }
     
-    public List<Blog> getUserBlogs(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return blogRepository.findByAuthorIdOrderByCreatedAtDesc(user.getId());
-    }
-    
-    public List<Blog> getTrendingBlogs() {
-        // Get blogs sorted by engagement (likes + comments) in the last 7 days
-        List<Blog> allBlogs = blogRepository.findAll();
-        return allBlogs.stream()
-                .filter(blog -> blog.getCreatedAt().isAfter(java.time.LocalDateTime.now().minusDays(7)))
-                .sorted((b1, b2) -> {
-                    int engagement1 = (b1.getLikeCount() != null ? b1.getLikeCount() : 0) + 
-                                     (b1.getCommentCount() != null ? b1.getCommentCount() : 0);
-                    int engagement2 = (b2.getLikeCount() != null ? b2.getLikeCount() : 0) + 
-                                     (b2.getCommentCount() != null ? b2.getCommentCount() : 0);
-                    return Integer.compare(engagement2, engagement1);
-                })
-                .limit(10)
-                .collect(Collectors.toList());
+    private CommentPage loadComments(Long blogId, String cursor, int pageSize) {
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<CommentView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = commentRepository.findPageByBlogId(blogId, limit);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            rows = commentRepository.findPageByBlogIdAfter(blogId, position.createdAt(), position.id(), limit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<CommentView> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            CommentView last = items.get(items.size() - 1);
+            nextCursor = new FeedCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CommentPage(List.copyOf(items), nextCursor, hasMore);
+    }
+    
+    public List<BlogCard> getUserBlogs(String username) {
+        return toCards(blogRepository.findCardsByAuthorUsername(username));
+    }
+    
+    public List<BlogCard> getTrendingBlogs() {
+        // Leaderboard is precomputed; only its few ids are loaded
+        return findAllInOrder(trendingBlogService.getTrendingBlogIds());
     }
     
     public com.contextblog.model.dto.AnalyzeResponse analyzeContent(String title, String content) {
@@ -194,13 +402,8 @@ public class BlogService {
         List<String> tags = aiService.generateTags(title, content);
         
         // Find related blogs based on content
-        List<Long> allBlogIds = blogRepository.findAll().stream()
-                .map(Blog::getId)
-                .filter(id -> id != null)
-                .collect(Collectors.toList());
-        
-        List<Long> relatedIds = aiService.findRelatedBlogs(title, content, allBlogIds);
-        List<Blog> relatedBlogs = blogRepository.findAllById(relatedIds);
+        List<Long> relatedIds = aiService.findRelatedBlogs(title, content, recommendationLimit);
+        List<BlogCard> relatedBlogs = findAllInOrder(relatedIds);
         
         return new com.contextblog.model.dto.AnalyzeResponse(summary, tags, relatedBlogs);
     }
@@ -208,4 +411,8 @@ public class BlogService {
     public String getAISuggestion(String text, String context) {
         return aiService.generateSuggestion(text, context);
     }
+    
+    public CompletableFuture<Void> streamAISuggestion(String text, String context, Consumer<String> onToken) {
+        return aiService.streamSuggestion(text, context, onToken);
+    }
 }
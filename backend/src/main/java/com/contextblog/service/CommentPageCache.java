@@ -0,0 +1,46 @@
+package com.contextblog.service;
+
+import com.contextblog.model.dto.CommentPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Newest page of comments per blog, which is what opening a post asks for.
+ * 
+ * Entries are evicted when a comment is added to the blog; the TTL only bounds
+ * staleness from writes that bypass {@link #invalidate}, such as a user being
+ * renamed or comments removed along with their author.
+ */
+@Component
+public class CommentPageCache {
+    
+    @Value("${blog.comments.first-page-cache.max-entries:1000}")
+    private long maxEntries;
+    
+    @Value("${blog.comments.first-page-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+    
+    private Cache<Long, CommentPage> cache;
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+    
+    public CommentPage get(Long blogId, Function<Long, CommentPage> loader) {
+        return cache.get(blogId, loader);
+    }
+    
+    public void invalidate(Long blogId) {
+        cache.invalidate(blogId);
+    }
+}
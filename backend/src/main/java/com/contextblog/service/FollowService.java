@@ -2,24 +2,80 @@ package com.contextblog.service;
 
 import com.contextblog.model.Follow;
 import com.contextblog.model.User;
+import com.contextblog.model.dto.AuthorSummary;
+import com.contextblog.model.dto.FollowStats;
+import com.contextblog.model.dto.UserPage;
 import com.contextblog.repository.FollowRepository;
 import com.contextblog.repository.UserRepository;
+import com.contextblog.service.social.FollowGraphCache;
+import com.contextblog.service.social.FollowIdList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+/**
+ * Follows between users.
+ * 
+ * Each user's follower and following counts are columns updated in the same
+ * transaction as the follow row, so reading them is a primary-key lookup rather
+ * than a COUNT over the follows table. Membership checks and follower/following
+ * lists are served from {@link FollowGraphCache}.
+ */
 @Service
 public class FollowService {
+    private static final Logger logger = LoggerFactory.getLogger(FollowService.class);
+    
     @Autowired
     private FollowRepository followRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private FollowGraphCache followGraphCache;
+    
+    @Value("${blog.follows.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${blog.follows.max-page-size:200}")
+    private int maxPageSize;
+    
+    /**
+     * Backfills the counters when they disagree with the follows table, which is
+     * the case once after the columns are added to an existing database (every
+     * user starts at 0). Two aggregates decide it, so a database whose counters
+     * are already in step never pays for the full-table recount.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recountIfOutOfStep() {
+        long follows = followRepository.count();
+        if (userRepository.sumFollowerCounts() != follows || userRepository.sumFollowingCounts() != follows) {
+            recountFollows();
+        }
+    }
+    
+    /**
+     * Rebuilds every user's counters from the follows table.
+     */
+    @Transactional
+    public void recountFollows() {
+        int users = userRepository.recountFollows();
+        logger.info("Follow counts recomputed for {} users", users);
+    }
+    
     @Transactional
     public Follow toggleFollow(Long followingId, String followerUsername) {
         User follower = userRepository.findByUsername(followerUsername)
@@ -37,39 +93,65 @@ public class FollowService {
         
         if (existingFollow != null) {
             followRepository.delete(existingFollow);
+            followChanged(follower.getId(), followingId, -1);
             return null;
         } else {
             Follow follow = new Follow();
             follow.setFollower(follower);
             follow.setFollowing(following);
-            return followRepository.save(follow);
+            follow = followRepository.save(follow);
+            followChanged(follower.getId(), followingId, 1);
+            return follow;
         }
     }
     
+    private void followChanged(Long followerId, Long followingId, int delta) {
+        userRepository.addToFollowingCount(followerId, delta);
+        userRepository.addToFollowerCount(followingId, delta);
+        followGraphCache.followChanged(followerId, followingId, delta > 0);
+    }
+    
     public boolean isFollowing(Long followingId, String followerUsername) {
         User follower = userRepository.findByUsername(followerUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return followRepository.existsByFollowerIdAndFollowingId(follower.getId(), followingId);
+        return followGraphCache.isFollowing(follower.getId(), followingId);
+    }
+    
+    public FollowStats getFollowStats(Long userId) {
+        return userRepository.findFollowCounts(userId).orElseGet(() -> new FollowStats(0, 0));
     }
     
     public long getFollowerCount(Long userId) {
-        return followRepository.countByFollowingId(userId);
+        return getFollowStats(userId).followerCount();
     }
     
     public long getFollowingCount(Long userId) {
-        return followRepository.countByFollowerId(userId);
+        return getFollowStats(userId).followingCount();
     }
     
-    public List<User> getFollowers(Long userId) {
-        return followRepository.findByFollowingId(userId).stream()
-                .map(Follow::getFollower)
-                .collect(Collectors.toList());
+    public UserPage getFollowers(Long userId, Long after, Integer size) {
+        return page(followGraphCache.followersOf(userId), after, size);
     }
     
-    public List<User> getFollowing(Long userId) {
-        return followRepository.findByFollowerId(userId).stream()
-                .map(Follow::getFollowing)
+    public UserPage getFollowing(Long userId, Long after, Integer size) {
+        return page(followGraphCache.followingOf(userId), after, size);
+    }
+    
+    private UserPage page(FollowIdList ids, Long after, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        long[] pageIds = ids.page(after, pageSize + 1);
+        boolean hasMore = pageIds.length > pageSize;
+        List<Long> wanted = Arrays.stream(pageIds).limit(pageSize).boxed().collect(Collectors.toList());
+        if (wanted.isEmpty()) {
+            return new UserPage(List.of(), null, false);
+        }
+        
+        Map<Long, AuthorSummary> byId = userRepository.findSummariesByIdIn(wanted).stream()
+                .collect(Collectors.toMap(AuthorSummary::id, summary -> summary));
+        List<AuthorSummary> items = wanted.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new UserPage(items, hasMore ? wanted.get(wanted.size() - 1) : null, hasMore);
     }
 }
-
@@ -1,15 +1,23 @@
 package com.contextblog.service;
 
+import com.contextblog.service.ai.AiResponseCache;
+import com.contextblog.service.ai.HedgedExecutor;
+import com.contextblog.service.ai.ModelHealthRegistry;
+import com.contextblog.service.ai.OpenRouterClient;
+import com.contextblog.service.ai.SingleFlight;
+import com.contextblog.service.image.ImagePreprocessor;
+import com.contextblog.service.image.PreparedImage;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.net.UnknownHostException;
@@ -18,13 +26,55 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class OpenRouterService {
     private static final Logger logger = LoggerFactory.getLogger(OpenRouterService.class);
-    private final RestTemplate restTemplate;
+    
+    private static final String TEXT_MODEL = "gpt-3.5-turbo";
+    private static final String SUMMARY_SYSTEM_PROMPT = "You are a helpful assistant that generates comprehensive summaries of blog posts.";
+    private static final String SUMMARY_USER_PROMPT = "Generate a comprehensive summary (4-6 sentences) of the following blog post. Cover the main points, key ideas, and important details:\n\n";
+    private static final String TAGS_SYSTEM_PROMPT = "You are a helpful assistant that generates relevant tags for blog posts. Return only a comma-separated list of 3-5 tags, no other text.";
+    // Solve candidates in order of preference (fastest first)
+    private static final List<String> SOLVE_MODELS = List.of(
+        "google/gemini-flash-1.5",  // Fastest Gemini model
+        "google/gemini-2.0-flash-exp",
+        "openai/gpt-3.5-turbo",     // Fast and reliable
+        "google/gemini-pro"        // Slower but more capable
+    );
+    
+    // Vision-capable candidates; multiple models improve celebrity identification
+    private static final List<String> VISION_MODELS = List.of(
+        "openai/gpt-4o",                // Most capable OpenAI vision model - best for celebrity recognition
+        "google/gemini-2.0-flash-exp",  // Fast vision model
+        "openai/gpt-4o-mini",          // Fast OpenAI vision model
+        "google/gemini-pro-vision",     // Gemini Pro with vision capabilities
+        "google/gemini-flash-1.5",     // Alternative Gemini model
+        "anthropic/claude-3.5-sonnet", // Claude model with vision
+        "anthropic/claude-3-opus"       // Most capable Claude model
+    );
+    
+    // News candidates, newest first
+    private static final List<String> NEWS_MODELS = List.of(
+        "google/gemini-2.0-flash-exp",  // Try newest model first
+        "google/gemini-flash-1.5",
+        "openai/gpt-4o-mini",  // Use GPT-4o-mini instead of 3.5
+        "openai/gpt-3.5-turbo",
+        "google/gemini-pro"
+    );
+    
+    private static final String VISION_PROMPT = "You are an expert at identifying famous people, celebrities, actors, and public figures who are well-known and searchable on Google. Analyze this image carefully. If there is a person visible in the image, you MUST attempt to identify them if they are a known public figure. Look for distinctive facial features, clothing style, and any recognizable characteristics. If you recognize the person as ANY celebrity, actor (including Bollywood actors like Shahrukh Khan, Amitabh Bachchan, Salman Khan, Aamir Khan, etc.), Hollywood actors, singers, politicians, sports personalities, or any public figure who is searchable on Google, you MUST state their full name at the very beginning of your response. Then provide their profession, nationality, and any relevant information about them. After identification, describe the image in detail including clothing, setting, expression, mood, colors, and visual elements. If you cannot identify the person, say 'I cannot identify this person' but still provide a detailed visual description. Remember: If the person is famous and searchable on Google, you should be able to identify them.";
+    
+    private static final String SUGGESTION_SYSTEM_PROMPT = "You are a helpful writing assistant. Provide brief, helpful suggestions to continue or improve the text. Keep suggestions concise (1-2 sentences max).";
+    
     private final ObjectMapper objectMapper;
     
     @Value("${openai.api.key}")
@@ -33,11 +83,25 @@ public class OpenRouterService {
     @Value("${openai.api.base-url:https://openrouter.ai/api/v1}")
     private String baseUrl;
     
+    @Autowired
+    private AiResponseCache responseCache;
+    
+    @Autowired
+    private OpenRouterClient openRouterClient;
+    
+    @Autowired
+    private HedgedExecutor hedgedExecutor;
+    
+    @Autowired
+    private ModelHealthRegistry modelHealth;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+    
     public OpenRouterService() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(5)); // Reduced from 10s to 5s
-        factory.setReadTimeout((int) TimeUnit.SECONDS.toMillis(15)); // Reduced from 30s to 15s
-        this.restTemplate = new RestTemplate(factory);
         this.objectMapper = new ObjectMapper();
     }
     
@@ -60,133 +124,157 @@ public class OpenRouterService {
         }
     }
     
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-openai-api-key-here");
+    }
+    
+    private Map<String, String> requestHeaders() {
+        return Map.of(
+            "Authorization", "Bearer " + apiKey,
+            "HTTP-Referer", "http://localhost:3000",
+            "X-Title", "AI Context Blog System"
+        );
+    }
+    
     public String generateSummary(String content) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback summary");
-            return content.length() > 200 ? content.substring(0, 200) + "..." : content;
+            return fallbackSummary(content);
         }
         
         try {
-            logger.info("Generating summary using OpenRouter API");
-            
-            // Prepare request
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo");
-            
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", "You are a helpful assistant that generates comprehensive summaries of blog posts."));
-            messages.add(Map.of("role", "user", "content", "Generate a comprehensive summary (4-6 sentences) of the following blog post. Cover the main points, key ideas, and important details:\n\n" + content));
-            
-            requestBody.put("messages", messages);
-            requestBody.put("max_tokens", 300);
-            requestBody.put("temperature", 0.7);
-            
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-            headers.set("HTTP-Referer", "http://localhost:3000");
-            headers.set("X-Title", "AI Context Blog System");
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            // Make API call
-            String url = baseUrl + "/chat/completions";
-            logger.info("Calling OpenRouter API: {}", url);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                
-                if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
-                    String summary = jsonNode.get("choices").get(0).get("message").get("content").asText();
-                    logger.info("Summary generated successfully");
-                    return summary.trim();
-                } else {
-                    logger.error("Invalid response format from OpenRouter: {}", response.getBody());
-                    return content.length() > 200 ? content.substring(0, 200) + "..." : content;
-                }
-            } else {
-                logger.error("OpenRouter API returned status: {} with body: {}", response.getStatusCode(), response.getBody());
-                return content.length() > 200 ? content.substring(0, 200) + "..." : content;
-            }
+            return requestSummary(content);
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             logger.error("HTTP error from OpenRouter: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
-            return content.length() > 200 ? content.substring(0, 200) + "..." : content;
+            return fallbackSummary(content);
         } catch (Exception e) {
             logger.error("Error generating summary: {}", e.getMessage(), e);
-            e.printStackTrace();
-            return content.length() > 200 ? content.substring(0, 200) + "..." : content;
+            return fallbackSummary(content);
         }
     }
     
+    /**
+     * Generates a summary or throws; for callers that handle retries and fallbacks themselves.
+     */
+    public String requestSummary(String content) throws Exception {
+        String cacheKey = AiResponseCache.key("summary", TEXT_MODEL, SUMMARY_SYSTEM_PROMPT + SUMMARY_USER_PROMPT, content);
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        return singleFlight.execute(cacheKey, () -> callSummary(content, cacheKey));
+    }
+    
+    private String callSummary(String content, String cacheKey) throws Exception {
+        logger.info("Generating summary using OpenRouter API");
+        
+        // Prepare request
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", TEXT_MODEL);
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", SUMMARY_SYSTEM_PROMPT));
+        messages.add(Map.of("role", "user", "content", SUMMARY_USER_PROMPT + content));
+        
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", 300);
+        requestBody.put("temperature", 0.7);
+        
+        // Make API call
+        String url = baseUrl + "/chat/completions";
+        logger.info("Calling OpenRouter API: {}", url);
+        
+        String responseBody = openRouterClient.postJsonAndWait(url, requestHeaders(), requestBody);
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+        
+        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
+            String summary = jsonNode.get("choices").get(0).get("message").get("content").asText().trim();
+            logger.info("Summary generated successfully");
+            responseCache.put(cacheKey, summary);
+            return summary;
+        }
+        throw new RuntimeException("Invalid response format from OpenRouter: " + responseBody);
+    }
+    
+    public String fallbackSummary(String content) {
+        return content.length() > 200 ? content.substring(0, 200) + "..." : content;
+    }
+    
     public List<String> generateTags(String title, String content) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback tag extraction");
             return extractSimpleTags(title, content);
         }
         
         try {
-            logger.info("Generating tags using OpenRouter API");
-            
-            // Prepare request
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo");
-            
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", "You are a helpful assistant that generates relevant tags for blog posts. Return only a comma-separated list of 3-5 tags, no other text."));
-            messages.add(Map.of("role", "user", "content", "Generate 3-5 relevant tags for this blog post:\n\nTitle: " + title + "\n\nContent: " + content.substring(0, Math.min(1000, content.length()))));
-            
-            requestBody.put("messages", messages);
-            requestBody.put("max_tokens", 50);
-            requestBody.put("temperature", 0.7);
-            
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-            headers.set("HTTP-Referer", "http://localhost:3000");
-            headers.set("X-Title", "AI Context Blog System");
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            // Make API call
-            String url = baseUrl + "/chat/completions";
-            logger.info("Calling OpenRouter API: {}", url);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                
-                if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
-                    String tagsResponse = jsonNode.get("choices").get(0).get("message").get("content").asText();
-                    logger.info("Tags generated successfully: {}", tagsResponse);
-                    
-                    return Arrays.stream(tagsResponse.split(","))
-                            .map(String::trim)
-                            .filter(tag -> !tag.isEmpty())
-                            .limit(5)
-                            .collect(Collectors.toList());
-                } else {
-                    logger.error("Invalid response format from OpenRouter: {}", response.getBody());
-                    return extractSimpleTags(title, content);
-                }
-            } else {
-                logger.error("OpenRouter API returned status: {} with body: {}", response.getStatusCode(), response.getBody());
-                return extractSimpleTags(title, content);
-            }
+            return requestTags(title, content);
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             logger.error("HTTP error from OpenRouter: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
             return extractSimpleTags(title, content);
         } catch (Exception e) {
             logger.error("Error generating tags: {}", e.getMessage(), e);
-            e.printStackTrace();
             return extractSimpleTags(title, content);
         }
     }
     
+    /**
+     * Generates tags or throws; for callers that handle retries and fallbacks themselves.
+     */
+    public List<String> requestTags(String title, String content) throws Exception {
+        String userPrompt = "Generate 3-5 relevant tags for this blog post:\n\nTitle: " + title + "\n\nContent: " + content.substring(0, Math.min(1000, content.length()));
+        String cacheKey = AiResponseCache.key("tags", TEXT_MODEL, TAGS_SYSTEM_PROMPT, userPrompt);
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            return parseTags(cached);
+        }
+        // Callers share the raw response and parse their own list
+        return parseTags(singleFlight.execute(cacheKey, () -> callTags(userPrompt, cacheKey)));
+    }
+    
+    private String callTags(String userPrompt, String cacheKey) throws Exception {
+        logger.info("Generating tags using OpenRouter API");
+        
+        // Prepare request
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", TEXT_MODEL);
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", TAGS_SYSTEM_PROMPT));
+        messages.add(Map.of("role", "user", "content", userPrompt));
+        
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", 50);
+        requestBody.put("temperature", 0.7);
+        
+        // Make API call
+        String url = baseUrl + "/chat/completions";
+        logger.info("Calling OpenRouter API: {}", url);
+        
+        String responseBody = openRouterClient.postJsonAndWait(url, requestHeaders(), requestBody);
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+        
+        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
+            String tagsResponse = jsonNode.get("choices").get(0).get("message").get("content").asText();
+            logger.info("Tags generated successfully: {}", tagsResponse);
+            
+            responseCache.put(cacheKey, tagsResponse);
+            return tagsResponse;
+        }
+        throw new RuntimeException("Invalid response format from OpenRouter: " + responseBody);
+    }
+    
+    private List<String> parseTags(String tagsResponse) {
+        return Arrays.stream(tagsResponse.split(","))
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .limit(5)
+                .collect(Collectors.toList());
+    }
+    
+    public List<String> fallbackTags(String title, String content) {
+        return extractSimpleTags(title, content);
+    }
+    
     private List<String> extractSimpleTags(String title, String content) {
         // Simple keyword extraction as fallback
         String combined = (title + " " + content).toLowerCase();
@@ -201,168 +289,152 @@ public class OpenRouterService {
     }
     
     public String generateSuggestion(String text, String context) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback suggestion");
             return "";
         }
         
         try {
-            logger.info("Generating AI suggestion");
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo");
-            
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", "You are a helpful writing assistant. Provide brief, helpful suggestions to continue or improve the text. Keep suggestions concise (1-2 sentences max)."));
-            
-            String prompt = "Based on the following text, provide a brief suggestion for what to write next or how to improve it:\n\n";
-            if (!context.isEmpty()) {
-                prompt += "Context: " + context + "\n\n";
-            }
-            prompt += "Current text: " + text.substring(Math.max(0, text.length() - 500));
-            
-            messages.add(Map.of("role", "user", "content", prompt));
-            
-            requestBody.put("messages", messages);
-            requestBody.put("max_tokens", 100);
-            requestBody.put("temperature", 0.7);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-            headers.set("HTTP-Referer", "http://localhost:3000");
-            headers.set("X-Title", "AI Context Blog System");
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            String url = baseUrl + "/chat/completions";
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
-                    String suggestion = jsonNode.get("choices").get(0).get("message").get("content").asText();
-                    logger.info("Suggestion generated successfully");
-                    return suggestion.trim();
-                }
-            }
-            return "";
+            return requestSuggestion(text, context);
         } catch (Exception e) {
             logger.error("Error generating suggestion: {}", e.getMessage(), e);
             return "";
         }
     }
     
+    private String requestSuggestion(String text, String context) throws Exception {
+        String prompt = suggestionPrompt(text, context);
+        String cacheKey = AiResponseCache.key("suggestion", TEXT_MODEL, SUGGESTION_SYSTEM_PROMPT, prompt);
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        
+        logger.info("Generating AI suggestion");
+        
+        Map<String, Object> requestBody = suggestionRequest(prompt, false);
+        String url = baseUrl + "/chat/completions";
+        String responseBody = openRouterClient.postJsonAndWait(url, requestHeaders(), requestBody);
+        
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
+            String suggestion = jsonNode.get("choices").get(0).get("message").get("content").asText().trim();
+            logger.info("Suggestion generated successfully");
+            responseCache.put(cacheKey, suggestion);
+            return suggestion;
+        }
+        return "";
+    }
+    
+    private static String suggestionPrompt(String text, String context) {
+        String prompt = "Based on the following text, provide a brief suggestion for what to write next or how to improve it:\n\n";
+        if (!context.isEmpty()) {
+            prompt += "Context: " + context + "\n\n";
+        }
+        return prompt + "Current text: " + text.substring(Math.max(0, text.length() - 500));
+    }
+    
+    private Map<String, Object> suggestionRequest(String prompt, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", TEXT_MODEL);
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", SUGGESTION_SYSTEM_PROMPT));
+        messages.add(Map.of("role", "user", "content", prompt));
+        
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", 100);
+        requestBody.put("temperature", 0.7);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+    
+    /**
+     * Streaming variant of {@link #generateSuggestion}: tokens are passed to
+     * {@code onToken} as the model produces them. A cached suggestion is
+     * delivered as a single token; a freshly streamed one is cached once complete.
+     */
+    public CompletableFuture<Void> streamSuggestion(String text, String context, Consumer<String> onToken) {
+        if (!isConfigured()) {
+            logger.warn("API key not configured, no suggestion to stream");
+            return CompletableFuture.completedFuture(null);
+        }
+        String prompt = suggestionPrompt(text, context);
+        String cacheKey = AiResponseCache.key("suggestion", TEXT_MODEL, SUGGESTION_SYSTEM_PROMPT, prompt);
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            onToken.accept(cached);
+            return CompletableFuture.completedFuture(null);
+        }
+        return new StreamingCall("suggestion-stream", List.of(TEXT_MODEL),
+                model -> suggestionRequest(prompt, true), onToken, cacheKey).start();
+    }
+    
+    /**
+     * Streaming variant of {@link #solveProblem}. Candidates are tried in health
+     * order until one starts answering; once tokens have been sent the model
+     * can no longer be switched, so a later failure ends the stream.
+     */
+    public CompletableFuture<Void> streamSolution(String question, Consumer<String> onToken) {
+        if (!isConfigured()) {
+            logger.warn("API key not configured, using fallback response");
+            onToken.accept("I'm sorry, but the AI service is not configured. Please check the API key settings.");
+            return CompletableFuture.completedFuture(null);
+        }
+        return new StreamingCall("solve-stream", SOLVE_MODELS,
+                model -> solveRequest(model, question, true), onToken, null).start();
+    }
+    
+    /**
+     * Extracts choices[0].delta.content from a streamed chat completion chunk.
+     */
+    private String deltaContent(String chunk) {
+        try {
+            JsonNode choices = objectMapper.readTree(chunk).path("choices");
+            if (choices.isArray() && choices.size() > 0) {
+                return choices.get(0).path("delta").path("content").asText("");
+            }
+        } catch (JsonProcessingException e) {
+            logger.debug("Skipping malformed stream chunk: {}", chunk);
+        }
+        return "";
+    }
+    
     public String solveProblem(String question) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback response");
             return "I'm sorry, but the AI service is not configured. Please check the API key settings.";
         }
         
         try {
             logger.info("Solving problem using OpenRouter API");
-            
-            // Try different models in order of preference (fastest first)
-            String[] modelsToTry = {
-                "google/gemini-flash-1.5",  // Fastest Gemini model
-                "google/gemini-2.0-flash-exp",
-                "openai/gpt-3.5-turbo",     // Fast and reliable
-                "google/gemini-pro"        // Slower but more capable
-            };
-            
-            Exception lastException = null;
-            for (String model : modelsToTry) {
-                try {
-                    logger.info("Trying model: {}", model);
-                    Map<String, Object> requestBody = new HashMap<>();
-                    requestBody.put("model", model);
-                    
-                    List<Map<String, String>> messages = new ArrayList<>();
-                    messages.add(Map.of("role", "system", "content", "You are a helpful AI assistant that provides clear, concise, and accurate answers to user questions. Be friendly and professional."));
-                    messages.add(Map.of("role", "user", "content", question));
-                    
-                    requestBody.put("messages", messages);
-                    requestBody.put("max_tokens", 500); // Reduced from 1000 for faster responses
-                    requestBody.put("temperature", 0.7);
-                    requestBody.put("stream", false); // Ensure non-streaming for faster response
-                    
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("Authorization", "Bearer " + apiKey);
-                    headers.set("HTTP-Referer", "http://localhost:3000");
-                    headers.set("X-Title", "AI Context Blog System");
-                    
-                    HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-                    String url = baseUrl + "/chat/completions";
-                    
-                    logger.info("Calling OpenRouter API: {} with model: {}", url, model);
-                    ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-                    if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                        JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
-                            String answer = jsonNode.get("choices").get(0).get("message").get("content").asText();
-                            logger.info("Problem solved successfully using model: {}", model);
-                            return answer.trim();
-                        } else {
-                            logger.warn("Invalid response format from OpenRouter for model {}: {}", model, response.getBody());
-                            // Try next model
-                            continue;
-                        }
-                    } else {
-                        logger.warn("OpenRouter API returned status {} for model {}: {}", response.getStatusCode(), model, response.getBody());
-                        // Try next model
-                        continue;
-                    }
-                } catch (org.springframework.web.client.HttpClientErrorException e) {
-                    String errorBody = e.getResponseBodyAsString();
-                    logger.warn("HTTP error for model {}: Status={}, Body={}", model, e.getStatusCode(), errorBody);
-                    
-                    // If it's authentication error, don't try other models
-                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN) {
-                        logger.error("❌ Authentication error - API key might be invalid or expired");
-                        logger.error("❌ Error details: {}", errorBody);
-                        logger.error("❌ Please check your API key in backend/src/main/resources/application.properties");
-                        logger.error("❌ Get a new key from: https://openrouter.ai/keys");
-                        return "I'm sorry, but there was an authentication error. Please check your API key in the backend configuration (application.properties).\n\n" +
-                               "Troubleshooting:\n" +
-                               "1. Verify your API key in backend/src/main/resources/application.properties\n" +
-                               "2. Get a new key from https://openrouter.ai/keys\n" +
-                               "3. Ensure the key starts with 'sk-or-v1-'\n" +
-                               "4. Restart the backend server after updating the key\n" +
-                               "5. Check backend logs for detailed error messages";
-                    }
-                    
-                    // If it's model not found, try next model
-                    if (e.getStatusCode() == HttpStatus.NOT_FOUND || e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                        lastException = e;
-                        continue; // Try next model
-                    }
-                    
-                    // For other errors, try next model
-                    lastException = e;
-                    continue;
-                } catch (Exception e) {
-                    logger.warn("Error with model {}: {}", model, e.getMessage());
-                    lastException = e;
-                    continue; // Try next model
-                }
+            String flightKey = AiResponseCache.key("solve", String.join(",", SOLVE_MODELS), "", question);
+            return singleFlight.execute(flightKey, () -> hedgedExecutor.execute("solve", SOLVE_MODELS,
+                    model -> callSolveModel(model, question),
+                    OpenRouterService::isFatalError));
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            String errorBody = e.getResponseBodyAsString();
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                logger.error("❌ Authentication error - API key might be invalid or expired");
+                logger.error("❌ Error details: {}", errorBody);
+                logger.error("❌ Please check your API key in backend/src/main/resources/application.properties");
+                logger.error("❌ Get a new key from: https://openrouter.ai/keys");
+                return "I'm sorry, but there was an authentication error. Please check your API key in the backend configuration (application.properties).\n\n" +
+                       "Troubleshooting:\n" +
+                       "1. Verify your API key in backend/src/main/resources/application.properties\n" +
+                       "2. Get a new key from https://openrouter.ai/keys\n" +
+                       "3. Ensure the key starts with 'sk-or-v1-'\n" +
+                       "4. Restart the backend server after updating the key\n" +
+                       "5. Check backend logs for detailed error messages";
             }
             
-            // If we get here, all models failed
-            if (lastException instanceof org.springframework.web.client.HttpClientErrorException) {
-                org.springframework.web.client.HttpClientErrorException httpEx = (org.springframework.web.client.HttpClientErrorException) lastException;
-                String errorBody = httpEx.getResponseBodyAsString();
-                logger.error("All models failed. Last error: Status={}, Body={}", httpEx.getStatusCode(), errorBody);
-                
-                if (httpEx.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                    return "I'm sorry, but there was an error with the request format. Please check the backend logs for details.";
-                } else {
-                    return "I'm sorry, but all AI models failed. Please check your API key and try again. Error: " + httpEx.getStatusCode();
-                }
+            logger.error("All models failed. Last error: Status={}, Body={}", e.getStatusCode(), errorBody);
+            if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
+                return "I'm sorry, but there was an error with the request format. Please check the backend logs for details.";
             } else {
-                logger.error("All models failed. Last exception: {}", lastException != null ? lastException.getMessage() : "Unknown");
-                return "I'm sorry, but all AI models failed. Please check your API key and network connection.";
+                return "I'm sorry, but all AI models failed. Please check your API key and try again. Error: " + e.getStatusCode();
             }
         } catch (RestClientException e) {
             Throwable cause = e.getCause();
@@ -379,119 +451,205 @@ public class OpenRouterService {
                 logger.error("Network error connecting to OpenRouter: {}", e.getMessage(), e);
                 return "I'm sorry, but there was a network error connecting to the AI service. Please check your internet connection and try again.";
             }
+        } catch (java.util.concurrent.TimeoutException e) {
+            logger.error("All models failed: {}", e.getMessage());
+            return "I'm sorry, but the connection to the AI service timed out. Please try again.";
         } catch (Exception e) {
-            logger.error("Error solving problem: {}", e.getMessage(), e);
-            e.printStackTrace();
-            return "I'm sorry, but an unexpected error occurred. Please try again.";
+            logger.error("All models failed. Last exception: {}", e.getMessage());
+            return "I'm sorry, but all AI models failed. Please check your API key and network connection.";
         }
     }
     
+    /**
+     * One solve attempt against a single model; throws so the hedged executor can move on.
+     */
+    private CompletableFuture<String> callSolveModel(String model, String question) {
+        Map<String, Object> requestBody = solveRequest(model, question, false);
+        String url = baseUrl + "/chat/completions";
+        
+        logger.info("Calling OpenRouter API: {} with model: {}", url, model);
+        return openRouterClient.postJson(url, requestHeaders(), requestBody, responseBody -> {
+            String answer = firstChoiceContent(model, responseBody);
+            logger.info("Problem solved successfully using model: {}", model);
+            return answer;
+        });
+    }
+    
+    private Map<String, Object> solveRequest(String model, String question, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", "You are a helpful AI assistant that provides clear, concise, and accurate answers to user questions. Be friendly and professional."));
+        messages.add(Map.of("role", "user", "content", question));
+        
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", 500); // Reduced from 1000 for faster responses
+        requestBody.put("temperature", 0.7);
+        requestBody.put("stream", stream);
+        return requestBody;
+    }
+    
+    /**
+     * Extracts choices[0].message.content from a chat completion response.
+     */
+    private String firstChoiceContent(String model, String responseBody) {
+        JsonNode jsonNode;
+        try {
+            jsonNode = objectMapper.readTree(responseBody);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid JSON from OpenRouter for model " + model, e);
+        }
+        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
+            return jsonNode.get("choices").get(0).get("message").get("content").asText().trim();
+        }
+        throw new RuntimeException("Invalid response format from OpenRouter for model " + model);
+    }
+    
+    /**
+     * Errors that no other model can fix: a rejected API key or an unreachable host.
+     */
+    private static boolean isFatalError(Throwable error) {
+        if (error instanceof org.springframework.web.client.HttpClientErrorException httpError) {
+            return httpError.getStatusCode() == HttpStatus.UNAUTHORIZED || httpError.getStatusCode() == HttpStatus.FORBIDDEN;
+        }
+        if (error instanceof RestClientException) {
+            Throwable cause = error.getCause();
+            return cause instanceof UnknownHostException || cause instanceof java.net.ConnectException;
+        }
+        return false;
+    }
+    
     /**
      * Generate news/blog content using OpenRouter API
      * Returns a list of news items with titles, summaries, and categories
      */
     public List<Map<String, String>> generateNews(int count) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback news");
             return getFallbackNews(count);
         }
         
         try {
-            // Get current date for context
-            java.time.LocalDate today = java.time.LocalDate.now();
-            String dateContext = today.toString();
-            
-            String prompt = String.format(
-                "You are a news aggregator. Provide %d REAL, ACTUAL news headlines from India that happened TODAY (%s) or in the last 24 hours. " +
-                "These must be REAL news events, not generic or hypothetical news. " +
-                "Include actual news from categories: Politics, Technology, Sports, Entertainment, Business, Education, Health, Science, Crime, Weather, Economy. " +
-                "Each news item must be: " +
-                "1. A REAL event that actually happened recently in India " +
-                "2. Include specific details, names, places, or events " +
-                "3. Have a detailed summary (100-150 words) explaining what happened " +
-                "Format as JSON array with objects containing: title (specific and real), summary (detailed, 100-150 words), category. " +
-                "Return ONLY valid JSON array, no markdown, no code blocks, no explanations. " +
-                "Example format: [{\"title\": \"Specific Real News Headline\", \"summary\": \"Detailed explanation...\", \"category\": \"Politics\"}]",
-                count, dateContext
-            );
-            
-            String[] models = {
-                "google/gemini-2.0-flash-exp",  // Try newest model first
-                "google/gemini-flash-1.5",
-                "openai/gpt-4o-mini",  // Use GPT-4o-mini instead of 3.5
-                "openai/gpt-3.5-turbo",
-                "google/gemini-pro"
-            };
-            
-            for (String model : models) {
-                try {
-                    logger.info("Attempting to fetch real news using model: {}", model);
-                    Map<String, Object> requestBody = new HashMap<>();
-                    requestBody.put("model", model);
-                    requestBody.put("messages", Arrays.asList(
-                        Map.of("role", "user", "content", prompt)
-                    ));
-                    requestBody.put("max_tokens", 2000);  // Increased for more detailed news
-                    requestBody.put("temperature", 0.3);  // Lower temperature for more factual, less creative
-                    
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("Authorization", "Bearer " + apiKey);
-                    headers.set("HTTP-Referer", "https://github.com/yourusername/contextblog");
-                    headers.set("X-Title", "Context Blog System");
-                    
-                    HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-                    ResponseEntity<JsonNode> response = restTemplate.exchange(
-                        baseUrl + "/chat/completions",
-                        HttpMethod.POST,
-                        request,
-                        JsonNode.class
-                    );
-                    
-                    JsonNode responseBody = response.getBody();
-                    if (response.getStatusCode() == HttpStatus.OK && responseBody != null) {
-                        JsonNode choices = responseBody.get("choices");
-                        if (choices != null && choices.isArray() && choices.size() > 0) {
-                            String content = choices.get(0).get("message").get("content").asText();
-                            // Clean the content (remove markdown code blocks if present)
-                            content = content.replaceAll("```json", "").replaceAll("```", "").trim();
-                            
-                            // Parse JSON array
-                            JsonNode newsArray = objectMapper.readTree(content);
-                            if (newsArray.isArray()) {
-                                List<Map<String, String>> newsList = new ArrayList<>();
-                                for (JsonNode item : newsArray) {
-                                    Map<String, String> newsItem = new HashMap<>();
-                                    newsItem.put("title", item.has("title") ? item.get("title").asText() : "News Title");
-                                    newsItem.put("summary", item.has("summary") ? item.get("summary").asText() : "News summary");
-                                    newsItem.put("category", item.has("category") ? item.get("category").asText() : "Technology");
-                                    newsItem.put("thumbnail", generateImageUrl(newsItem.get("title"), newsItem.get("category")));
-                                    newsList.add(newsItem);
-                                }
-                                logger.info("Successfully generated {} REAL news items using model {}", newsList.size(), model);
-                                // Validate that we got real news (not fallback)
-                                if (newsList.size() > 0) {
-                                    logger.info("First news item: {}", newsList.get(0).get("title"));
-                                }
-                                return newsList;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.error("Error with model {}: {}", model, e.getMessage(), e);
-                    continue;
-                }
-            }
-            
-            // If all models fail, log error and return fallback
-            logger.error("All models failed to generate real news. Using fallback news. Check API key and network connection.");
-            return getFallbackNews(count);
+            return fetchNews(count);
         } catch (Exception e) {
             logger.error("Error generating news: {}", e.getMessage(), e);
             return getFallbackNews(count);
         }
     }
     
+    /**
+     * Generates news with the first healthy news model; unlike {@link #generateNews}
+     * it throws instead of falling back, so callers can keep a previous result.
+     */
+    public List<Map<String, String>> fetchNews(int count) throws Exception {
+        if (!isConfigured()) {
+            throw new IllegalStateException("API key not configured");
+        }
+        
+        // Get current date for context
+        java.time.LocalDate today = java.time.LocalDate.now();
+        String dateContext = today.toString();
+        
+        String prompt = String.format(
+            "You are a news aggregator. Provide %d REAL, ACTUAL news headlines from India that happened TODAY (%s) or in the last 24 hours. " +
+            "These must be REAL news events, not generic or hypothetical news. " +
+            "Include actual news from categories: Politics, Technology, Sports, Entertainment, Business, Education, Health, Science, Crime, Weather, Economy. " +
+            "Each news item must be: " +
+            "1. A REAL event that actually happened recently in India " +
+            "2. Include specific details, names, places, or events " +
+            "3. Have a detailed summary (100-150 words) explaining what happened " +
+            "Format as JSON array with objects containing: title (specific and real), summary (detailed, 100-150 words), category. " +
+            "Return ONLY valid JSON array, no markdown, no code blocks, no explanations. " +
+            "Example format: [{\"title\": \"Specific Real News Headline\", \"summary\": \"Detailed explanation...\", \"category\": \"Politics\"}]",
+            count, dateContext
+        );
+        // The prompt carries count and date, so identical requests of the same day share a call
+        String flightKey = AiResponseCache.key("news", String.join(",", NEWS_MODELS), prompt, "");
+        return singleFlight.execute(flightKey, () -> callNewsModels(prompt));
+    }
+    
+    private List<Map<String, String>> callNewsModels(String prompt) throws InterruptedException {
+        for (String model : modelHealth.order(NEWS_MODELS)) {
+            if (!modelHealth.tryAcquire(model)) {
+                continue;
+            }
+            long started = System.nanoTime();
+            try {
+                logger.info("Attempting to fetch real news using model: {}", model);
+                List<Map<String, String>> newsList = callNewsModel(model, prompt);
+                modelHealth.recordSuccess(model, elapsedMs(started));
+                return newsList;
+            } catch (InterruptedException e) {
+                // Cancelled by the last waiter; do not move on to the next model
+                modelHealth.recordAbandoned(model, elapsedMs(started));
+                throw e;
+            } catch (Exception e) {
+                if (isFatalError(e)) {
+                    modelHealth.release(model);
+                } else {
+                    modelHealth.recordFailure(model, e, elapsedMs(started));
+                }
+                logger.error("Error with model {}: {}", model, e.getMessage(), e);
+            }
+        }
+        
+        throw new RuntimeException("All models failed to generate news");
+    }
+    
+    /**
+     * One news attempt against a single model; throws on anything that is not a usable news array.
+     */
+    private List<Map<String, String>> callNewsModel(String model, String prompt) throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", Arrays.asList(
+            Map.of("role", "user", "content", prompt)
+        ));
+        requestBody.put("max_tokens", 2000);  // Increased for more detailed news
+        requestBody.put("temperature", 0.3);  // Lower temperature for more factual, less creative
+        
+        Map<String, String> headers = Map.of(
+            "Authorization", "Bearer " + apiKey,
+            "HTTP-Referer", "https://github.com/yourusername/contextblog",
+            "X-Title", "Context Blog System"
+        );
+        
+        JsonNode responseBody = objectMapper.readTree(
+            openRouterClient.postJsonAndWait(baseUrl + "/chat/completions", headers, requestBody));
+        JsonNode choices = responseBody.get("choices");
+        if (choices != null && choices.isArray() && choices.size() > 0) {
+            String content = choices.get(0).get("message").get("content").asText();
+            // Clean the content (remove markdown code blocks if present)
+            content = content.replaceAll("```json", "").replaceAll("```", "").trim();
+            
+            // Parse JSON array
+            JsonNode newsArray = objectMapper.readTree(content);
+            if (newsArray.isArray()) {
+                List<Map<String, String>> newsList = new ArrayList<>();
+                for (JsonNode item : newsArray) {
+                    Map<String, String> newsItem = new HashMap<>();
+                    newsItem.put("title", item.has("title") ? item.get("title").asText() : "News Title");
+                    newsItem.put("summary", item.has("summary") ? item.get("summary").asText() : "News summary");
+                    newsItem.put("category", item.has("category") ? item.get("category").asText() : "Technology");
+                    newsItem.put("thumbnail", generateImageUrl(newsItem.get("title"), newsItem.get("category")));
+                    newsList.add(newsItem);
+                }
+                logger.info("Successfully generated {} REAL news items using model {}", newsList.size(), model);
+                // Validate that we got real news (not fallback)
+                if (newsList.size() > 0) {
+                    logger.info("First news item: {}", newsList.get(0).get("title"));
+                }
+                return newsList;
+            }
+        }
+        throw new RuntimeException("Response from model " + model + " did not contain a news array");
+    }
+    
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+    
     /**
      * Generate image URL based on title and category
      */
@@ -545,7 +703,19 @@ public class OpenRouterService {
      * @return AI-generated summary/description of the image
      */
     public String analyzeImage(String imageBase64) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openai-api-key-here")) {
+        return analyzeImage(() -> imagePreprocessor.prepare(imageBase64));
+    }
+    
+    /**
+     * Analyzes an uploaded image file; {@code image} is read once to decode it,
+     * and again only if its format has to be sent unchanged.
+     */
+    public String analyzeImage(InputStreamSource image, String contentType) {
+        return analyzeImage(() -> imagePreprocessor.prepare(image, contentType));
+    }
+    
+    private String analyzeImage(Supplier<PreparedImage> preparer) {
+        if (!isConfigured()) {
             logger.warn("API key not configured, using fallback response");
             return "I'm sorry, but the AI service is not configured. Please check the API key settings.";
         }
@@ -553,171 +723,104 @@ public class OpenRouterService {
         try {
             logger.info("Analyzing image using OpenRouter API");
             
-            // Extract image format and base64 data from data URL
-            String base64Data = imageBase64;
-            String imageFormat = "jpeg"; // default format
-            String dataUrlPrefix = "data:image/jpeg;base64,"; // default prefix
-            
-            if (imageBase64.contains(",")) {
-                int commaIndex = imageBase64.indexOf(",");
-                String prefix = imageBase64.substring(0, commaIndex);
-                base64Data = imageBase64.substring(commaIndex + 1);
-                
-                // Extract image format from data URL prefix (e.g., "data:image/png;base64,")
-                if (prefix.contains("image/")) {
-                    String formatPart = prefix.substring(prefix.indexOf("image/") + 6);
-                    if (formatPart.contains(";")) {
-                        imageFormat = formatPart.substring(0, formatPart.indexOf(";"));
-                    } else {
-                        imageFormat = formatPart;
-                    }
-                }
-                dataUrlPrefix = "data:image/" + imageFormat + ";base64,";
-            } else {
-                // If no data URL prefix, assume it's just base64 data and use default format
-                dataUrlPrefix = "data:image/jpeg;base64,";
+            PreparedImage image = preparer.get();
+            if (image.fingerprint() == null) {
+                return hedgedExecutor.execute("analyze-image", VISION_MODELS,
+                        model -> callVisionModel(model, image),
+                        OpenRouterService::isFatalError);
             }
             
-            // Try different vision-capable models in order of preference
-            // Using multiple models to improve celebrity identification
-            String[] modelsToTry = {
-                "openai/gpt-4o",                // Most capable OpenAI vision model - best for celebrity recognition
-                "google/gemini-2.0-flash-exp",  // Fast vision model
-                "openai/gpt-4o-mini",          // Fast OpenAI vision model
-                "google/gemini-pro-vision",     // Gemini Pro with vision capabilities
-                "google/gemini-flash-1.5",     // Alternative Gemini model
-                "anthropic/claude-3.5-sonnet", // Claude model with vision
-                "anthropic/claude-3-opus"       // Most capable Claude model
-            };
-            
-            Exception lastException = null;
-            for (String model : modelsToTry) {
-                try {
-                    logger.info("Trying vision model: {}", model);
-                    Map<String, Object> requestBody = new HashMap<>();
-                    requestBody.put("model", model);
-                    
-                    // Build message with image content
-                    List<Map<String, Object>> messages = new ArrayList<>();
-                    
-                    Map<String, Object> userMessage = new HashMap<>();
-                    userMessage.put("role", "user");
-                    
-                    // Create content array with text and image
-                    List<Map<String, Object>> content = new ArrayList<>();
-                    
-                    // Add text prompt
-                    Map<String, Object> textContent = new HashMap<>();
-                    textContent.put("type", "text");
-                    textContent.put("text", "You are an expert at identifying famous people, celebrities, actors, and public figures who are well-known and searchable on Google. Analyze this image carefully. If there is a person visible in the image, you MUST attempt to identify them if they are a known public figure. Look for distinctive facial features, clothing style, and any recognizable characteristics. If you recognize the person as ANY celebrity, actor (including Bollywood actors like Shahrukh Khan, Amitabh Bachchan, Salman Khan, Aamir Khan, etc.), Hollywood actors, singers, politicians, sports personalities, or any public figure who is searchable on Google, you MUST state their full name at the very beginning of your response. Then provide their profession, nationality, and any relevant information about them. After identification, describe the image in detail including clothing, setting, expression, mood, colors, and visual elements. If you cannot identify the person, say 'I cannot identify this person' but still provide a detailed visual description. Remember: If the person is famous and searchable on Google, you should be able to identify them.");
-                    content.add(textContent);
-                    
-                    // Add image content
-                    Map<String, Object> imageContent = new HashMap<>();
-                    imageContent.put("type", "image_url");
-                    Map<String, String> imageUrl = new HashMap<>();
-                    imageUrl.put("url", dataUrlPrefix + base64Data);
-                    imageContent.put("image_url", imageUrl);
-                    content.add(imageContent);
-                    
-                    userMessage.put("content", content);
-                    messages.add(userMessage);
-                    
-                    requestBody.put("messages", messages);
-                    requestBody.put("max_tokens", 1000); // Increased for more detailed responses
-                    requestBody.put("temperature", 0.2); // Lower temperature for more factual and accurate identification
-                    requestBody.put("stream", false);
-                    
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("Authorization", "Bearer " + apiKey);
-                    headers.set("HTTP-Referer", "http://localhost:3000");
-                    headers.set("X-Title", "AI Context Blog System");
-                    
-                    HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-                    String url = baseUrl + "/chat/completions";
-                    
-                    logger.info("Calling OpenRouter API for image analysis: {} with model: {}", url, model);
-                    ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-                    if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                        JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                        if (jsonNode.has("choices") && jsonNode.get("choices").isArray() && jsonNode.get("choices").size() > 0) {
-                            String summary = jsonNode.get("choices").get(0).get("message").get("content").asText();
-                            logger.info("Image analyzed successfully using model: {}", model);
-                            return summary.trim();
-                        } else {
-                            logger.warn("Invalid response format from OpenRouter for model {}: {}", model, response.getBody());
-                            continue;
-                        }
-                    } else {
-                        logger.warn("OpenRouter API returned status {} for model {}: {}", response.getStatusCode(), model, response.getBody());
-                        continue;
-                    }
-                } catch (org.springframework.web.client.HttpClientErrorException e) {
-                    String errorBody = e.getResponseBodyAsString();
-                    logger.warn("HTTP error for model {}: Status={}, Body={}", model, e.getStatusCode(), errorBody);
-                    
-                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN) {
-                        logger.error("❌ API key issue for model {}. Error: {}", model, errorBody);
-                        logger.error("❌ Please check your API key in backend/src/main/resources/application.properties");
-                        logger.error("❌ Get a new key from: https://openrouter.ai/keys");
-                        lastException = new RuntimeException("API key is invalid or expired. Please check your OpenRouter API key configuration in application.properties. Get a new key from https://openrouter.ai/keys");
-                        break; // Don't try other models if API key is invalid
-                    } else if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
-                        logger.warn("Bad request for model {}. Trying next model. Error: {}", model, errorBody);
-                        lastException = e;
-                        continue; // Try next model
-                    } else if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                        logger.warn("Model {} not found. Trying next model.", model);
-                        lastException = e;
-                        continue; // Try next model
-                    } else {
-                        lastException = e;
-                        continue; // Try next model
-                    }
-                } catch (RestClientException e) {
-                    Throwable cause = e.getCause();
-                    if (cause instanceof UnknownHostException) {
-                        logger.error("Network error: Cannot connect to openrouter.ai. Please check your internet connection and DNS settings.");
-                        lastException = new RuntimeException("Cannot connect to AI service. Please check your internet connection.", e);
-                        break; // Don't try other models if network is down
-                    } else if (cause instanceof java.net.ConnectException) {
-                        logger.error("Connection error: Cannot reach openrouter.ai. Please check your firewall/proxy settings.");
-                        lastException = new RuntimeException("Cannot connect to AI service. Please check your firewall/proxy settings.", e);
-                        break;
-                    } else if (cause instanceof java.net.SocketTimeoutException) {
-                        logger.warn("Timeout for model {}. Trying next model.", model);
-                        lastException = e;
-                        continue; // Try next model
-                    } else {
-                        logger.warn("RestClientException for model {}: {}", model, e.getMessage());
-                        lastException = e;
-                        continue; // Try next model
-                    }
-                } catch (Exception e) {
-                    logger.error("Unexpected error for model {}: {}", model, e.getMessage(), e);
-                    lastException = e;
-                    continue; // Try next model
-                }
+            // Uploads that decode to exactly the same pixels share the answer
+            String cacheKey = AiResponseCache.key("analyze-image", "", VISION_PROMPT, image.fingerprint());
+            String cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                logger.info("Image analysis served from cache ({})", image.fingerprint());
+                return cached;
             }
-            
-            // If all models failed, throw the last exception
-            if (lastException != null) {
-                throw lastException;
-            } else {
-                throw new RuntimeException("All vision models failed. Please try again later.");
+            return singleFlight.execute(cacheKey, () -> {
+                String summary = hedgedExecutor.execute("analyze-image", VISION_MODELS,
+                        model -> callVisionModel(model, image),
+                        OpenRouterService::isFatalError);
+                responseCache.put(cacheKey, summary);
+                return summary;
+            });
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                logger.error("❌ API key issue. Error: {}", e.getResponseBodyAsString());
+                logger.error("❌ Please check your API key in backend/src/main/resources/application.properties");
+                logger.error("❌ Get a new key from: https://openrouter.ai/keys");
+                throw new RuntimeException("Failed to analyze image: API key is invalid or expired. Please check your OpenRouter API key configuration in application.properties. Get a new key from https://openrouter.ai/keys", e);
+            }
+            logger.error("Error analyzing image: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to analyze image: " + e.getMessage(), e);
+        } catch (RestClientException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnknownHostException) {
+                logger.error("Network error: Cannot connect to openrouter.ai. Please check your internet connection and DNS settings.");
+                throw new RuntimeException("Failed to analyze image: Cannot connect to AI service. Please check your internet connection.", e);
+            } else if (cause instanceof java.net.ConnectException) {
+                logger.error("Connection error: Cannot reach openrouter.ai. Please check your firewall/proxy settings.");
+                throw new RuntimeException("Failed to analyze image: Cannot connect to AI service. Please check your firewall/proxy settings.", e);
             }
+            logger.error("Error analyzing image: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to analyze image: " + e.getMessage(), e);
         } catch (Exception e) {
             logger.error("Error analyzing image: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to analyze image: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * One vision attempt against a single model; throws so the hedged executor can move on.
+     */
+    private CompletableFuture<String> callVisionModel(String model, PreparedImage image) {
+        String dataUrl = image.dataUrlFor(imagePreprocessor.limitsFor(model));
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        
+        // Build message with image content
+        List<Map<String, Object>> messages = new ArrayList<>();
+        
+        Map<String, Object> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        
+        // Create content array with text and image
+        List<Map<String, Object>> content = new ArrayList<>();
+        
+        // Add text prompt
+        Map<String, Object> textContent = new HashMap<>();
+        textContent.put("type", "text");
+        textContent.put("text", VISION_PROMPT);
+        content.add(textContent);
+        
+        // Add image content
+        Map<String, Object> imageContent = new HashMap<>();
+        imageContent.put("type", "image_url");
+        imageContent.put("image_url", Map.of("url", dataUrl));
+        content.add(imageContent);
+        
+        userMessage.put("content", content);
+        messages.add(userMessage);
+        
+        requestBody.put("messages", messages);
+        requestBody.put("max_tokens", 1000); // Increased for more detailed responses
+        requestBody.put("temperature", 0.2); // Lower temperature for more factual and accurate identification
+        requestBody.put("stream", false);
+        
+        String url = baseUrl + "/chat/completions";
+        
+        logger.info("Calling OpenRouter API for image analysis: {} with model: {}", url, model);
+        return openRouterClient.postJson(url, requestHeaders(), requestBody, responseBody -> {
+            String summary = firstChoiceContent(model, responseBody);
+            logger.info("Image analyzed successfully using model: {}", model);
+            return summary;
+        });
+    }
+    
     /**
      * Fallback news when API is not available - Indian news focus
      */
-    private List<Map<String, String>> getFallbackNews(int count) {
+    public List<Map<String, String>> getFallbackNews(int count) {
         List<Map<String, String>> news = new ArrayList<>();
         String[] titles = {
             "India's Tech Sector Sees Record Growth in 2024",
@@ -764,5 +867,113 @@ public class OpenRouterService {
         }
         return news;
     }
+    
+    /**
+     * One streamed completion, falling back to the next healthy model while
+     * nothing has been sent yet. Cancelling {@link #start()}'s future aborts the
+     * upstream stream.
+     */
+    private final class StreamingCall {
+        private final String operation;
+        private final List<String> models;
+        private final Function<String, Map<String, Object>> requestFor;
+        private final Consumer<String> onToken;
+        private final String cacheKey;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final StringBuilder text = new StringBuilder();
+        private volatile CompletableFuture<Void> current;
+        private volatile boolean consumerFailed;
+        private int next;
+        
+        private StreamingCall(String operation, List<String> candidates, Function<String, Map<String, Object>> requestFor,
+                              Consumer<String> onToken, String cacheKey) {
+            this.operation = operation;
+            this.models = modelHealth.order(candidates);
+            this.requestFor = requestFor;
+            this.onToken = onToken;
+            this.cacheKey = cacheKey;
+            result.whenComplete((value, error) -> {
+                CompletableFuture<Void> attempt = current;
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            });
+        }
+        
+        private CompletableFuture<Void> start() {
+            tryNext(null);
+            return result;
+        }
+        
+        private void tryNext(Throwable lastError) {
+            while (next < models.size()) {
+                String model = models.get(next++);
+                if (modelHealth.tryAcquire(model)) {
+                    stream(model);
+                    return;
+                }
+            }
+            result.completeExceptionally(lastError != null ? lastError
+                    : new IllegalStateException(operation + ": no models available, all circuits are open"));
+        }
+        
+        private void stream(String model) {
+            long started = System.nanoTime();
+            logger.info("{}: streaming from model {}", operation, model);
+            CompletableFuture<Void> attempt = openRouterClient.streamJson(
+                    baseUrl + "/chat/completions", requestHeaders(), requestFor.apply(model), this::relay);
+            current = attempt;
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((value, error) -> finished(model, started, error));
+        }
+        
+        private void relay(String chunk) {
+            String token = deltaContent(chunk);
+            if (token.isEmpty()) {
+                return;
+            }
+            text.append(token);
+            try {
+                onToken.accept(token);
+            } catch (RuntimeException e) {
+                consumerFailed = true;
+                throw e;
+            }
+        }
+        
+        private void finished(String model, long started, Throwable error) {
+            long elapsed = elapsedMs(started);
+            if (error == null) {
+                modelHealth.recordSuccess(model, elapsed);
+                if (cacheKey != null && text.length() > 0) {
+                    responseCache.put(cacheKey, text.toString().trim());
+                }
+                logger.info("{}: model {} finished streaming {} characters", operation, model, text.length());
+                result.complete(null);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (consumerFailed || result.isDone() || cause instanceof CancellationException) {
+                // The client went away; says nothing about the model
+                logger.info("{}: stream from model {} abandoned after {} characters", operation, model, text.length());
+                modelHealth.recordAbandoned(model, elapsed);
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (isFatalError(cause)) {
+                modelHealth.release(model);
+                result.completeExceptionally(cause);
+                return;
+            }
+            modelHealth.recordFailure(model, cause, elapsed);
+            if (text.length() > 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            logger.warn("{}: model {} failed before the first token: {}", operation, model, cause.getMessage());
+            tryNext(cause);
+        }
+    }
 }
-
@@ -0,0 +1,122 @@
+package com.contextblog.service.ai;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global cap on concurrent AI requests, sized from their observed latency (AIMD).
+ * 
+ * Admission is a lock-free check of the in-flight count against the current limit.
+ * Every finished call is a sample: a failure, or a call slower than
+ * {@code slow-call-factor} times the average AI latency, means the upstream side is
+ * congested and shrinks the limit by 10%; otherwise, while the limit is actually in
+ * use, it grows by one per limit's worth of calls. The limit stays within
+ * [{@code min-limit}, {@code max-limit}], so AI calls can never occupy more than
+ * {@code max-limit} servlet threads and cheap requests always find one. Samples
+ * faster than {@code min-sample-ms} (cache hits) do not move the latency baseline.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+    
+    private static final double LATENCY_ALPHA = 0.1;
+    private static final double DECREASE_FACTOR = 0.9;
+    
+    @Value("${ai.admission.concurrency.initial-limit:16}")
+    private int initialLimit;
+    
+    @Value("${ai.admission.concurrency.min-limit:4}")
+    private int minLimit;
+    
+    @Value("${ai.admission.concurrency.max-limit:32}")
+    private int maxLimit;
+    
+    @Value("${ai.admission.concurrency.slow-call-factor:2.0}")
+    private double slowCallFactor;
+    
+    @Value("${ai.admission.concurrency.min-sample-ms:200}")
+    private long minSampleMs;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    // Written under the monitor in sample(), read without it
+    private volatile double limit;
+    private volatile double averageLatencyMs;
+    
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Releases a slot and adjusts the limit from the call's outcome.
+     */
+    public void release(long latencyMs, boolean failed) {
+        int busy = inFlight.getAndDecrement();
+        sample(latencyMs, failed, busy);
+    }
+    
+    /**
+     * Releases a slot without a sample, for calls whose duration says nothing about
+     * upstream latency (streams last as long as the answer).
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+    
+    /**
+     * Suggested wait for rejected callers: about one average AI call, at least a second.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(averageLatencyMs / 1000));
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("limit", (int) limit);
+        result.put("inFlight", inFlight.get());
+        result.put("averageLatencyMs", Math.round(averageLatencyMs));
+        result.put("rejectedBusy", rejected.sum());
+        return result;
+    }
+    
+    private synchronized void sample(long latencyMs, boolean failed, int busy) {
+        double average = averageLatencyMs;
+        boolean congested = failed || (average > 0 && latencyMs > slowCallFactor * average);
+        if (latencyMs >= minSampleMs) {
+            averageLatencyMs = average == 0 ? latencyMs : average + LATENCY_ALPHA * (latencyMs - average);
+        }
+        double previous = limit;
+        if (congested) {
+            limit = Math.max(minLimit, previous * DECREASE_FACTOR);
+        } else if (busy * 2 >= previous) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, previous + 1 / previous);
+        }
+        if ((int) limit != (int) previous) {
+            logger.debug("AI concurrency limit {} -> {} (latency {} ms, average {} ms, failed {})",
+                    (int) previous, (int) limit, latencyMs, Math.round(averageLatencyMs), failed);
+        }
+    }
+}
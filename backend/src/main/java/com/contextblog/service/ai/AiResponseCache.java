@@ -0,0 +1,191 @@
+package com.contextblog.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache for successful AI completions, keyed by a SHA-256 of
+ * (operation, model, prompt, normalized input).
+ * 
+ * Tier 1 is an in-heap Caffeine cache (W-TinyLFU admission, size bound, TTL).
+ * Tier 2 is an optional directory of one file per key that survives restarts;
+ * each file starts with its expiry time, and a scheduled sweep removes expired
+ * files and trims the oldest ones beyond the size limit. Fallback responses are
+ * never cached, only real model output.
+ */
+@Component
+public class AiResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(AiResponseCache.class);
+    
+    @Value("${ai.cache.max-entries:10000}")
+    private long maxEntries;
+    
+    @Value("${ai.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+    
+    @Value("${ai.cache.disk.enabled:false}")
+    private boolean diskEnabled;
+    
+    @Value("${ai.cache.disk.path:data/ai-cache}")
+    private String diskPath;
+    
+    @Value("${ai.cache.disk.max-entries:50000}")
+    private int diskMaxEntries;
+    
+    private Cache<String, String> memory;
+    private Path directory;
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong diskMisses = new AtomicLong();
+    
+    @PostConstruct
+    public void init() throws IOException {
+        memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        if (diskEnabled) {
+            directory = Paths.get(diskPath);
+            Files.createDirectories(directory);
+        }
+    }
+    
+    /**
+     * Builds the cache key. Whitespace in the input is collapsed so that edits
+     * which only reflow text still hit the cache.
+     */
+    public static String key(String operation, String model, String prompt, String input) {
+        String normalized = input == null ? "" : input.trim().replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : List.of(operation, model, prompt, normalized)) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    public String get(String key) {
+        String value = memory.getIfPresent(key);
+        if (value != null || directory == null) {
+            return value;
+        }
+        value = readDisk(key);
+        if (value != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, value);
+        } else {
+            diskMisses.incrementAndGet();
+        }
+        return value;
+    }
+    
+    public void put(String key, String value) {
+        memory.put(key, value);
+        if (directory != null) {
+            writeDisk(key, value);
+        }
+    }
+    
+    public Map<String, Object> stats() {
+        CacheStats stats = memory.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("memoryEntries", memory.estimatedSize());
+        result.put("memoryHits", stats.hitCount());
+        result.put("memoryMisses", stats.missCount());
+        result.put("memoryHitRate", stats.hitRate());
+        result.put("memoryEvictions", stats.evictionCount());
+        result.put("diskEnabled", directory != null);
+        result.put("diskHits", diskHits.get());
+        result.put("diskMisses", diskMisses.get());
+        return result;
+    }
+    
+    @Scheduled(fixedDelayString = "${ai.cache.disk.sweep-interval-ms:3600000}")
+    public void sweepDisk() {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> live = files.filter(path -> path.toString().endsWith(".txt"))
+                    .filter(path -> readDisk(fileKey(path)) != null)
+                    .sorted(Comparator.comparing(AiResponseCache::lastModified))
+                    .toList();
+            for (int i = 0; i < live.size() - diskMaxEntries; i++) {
+                Files.deleteIfExists(live.get(i));
+            }
+        } catch (IOException e) {
+            logger.warn("AI cache sweep failed: {}", e.getMessage());
+        }
+    }
+    
+    private String readDisk(String key) {
+        Path file = directory.resolve(key + ".txt");
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline > 0 && Long.parseLong(content.substring(0, newline)) > System.currentTimeMillis()) {
+                return content.substring(newline + 1);
+            }
+            Files.deleteIfExists(file);
+        } catch (NoSuchFileException e) {
+            // Plain miss
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Unreadable AI cache entry {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+    
+    private void writeDisk(String key, String value) {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis();
+        try {
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.writeString(tmp, expiresAt + "\n" + value, StandardCharsets.UTF_8);
+            Files.move(tmp, directory.resolve(key + ".txt"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write AI cache entry: {}", e.getMessage());
+        }
+    }
+    
+    private static String fileKey(Path path) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.length() - ".txt".length());
+    }
+    
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.contextblog.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client token buckets for the AI endpoints: one per signed-in user, one per
+ * IP address for anonymous callers.
+ * 
+ * Each bucket is the generic cell rate algorithm (GCRA), which behaves exactly like
+ * a token bucket of {@code burst} tokens refilled at {@code requests-per-minute}
+ * but keeps its whole state in one {@link AtomicLong}: the time at which the bucket
+ * would be full again. Admitting a request is a single compare-and-set, and a
+ * rejection knows precisely how long the client has to wait. Idle buckets expire;
+ * a bucket recreated later starts full, which is what it would have refilled to.
+ */
+@Component
+public class ClientRateLimiter {
+    
+    @Value("${ai.admission.user.requests-per-minute:20}")
+    private int userRequestsPerMinute;
+    
+    @Value("${ai.admission.user.burst:5}")
+    private int userBurst;
+    
+    @Value("${ai.admission.ip.requests-per-minute:10}")
+    private int ipRequestsPerMinute;
+    
+    @Value("${ai.admission.ip.burst:5}")
+    private int ipBurst;
+    
+    @Value("${ai.admission.max-clients:100000}")
+    private long maxClients;
+    
+    private record Policy(long intervalNanos, long toleranceNanos) {
+        private static Policy of(int requestsPerMinute, int burst) {
+            long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+            return new Policy(interval, interval * (Math.max(1, burst) - 1));
+        }
+    }
+    
+    private Policy userPolicy;
+    private Policy ipPolicy;
+    // Theoretical arrival time of the next request per client, in System.nanoTime() units
+    private Cache<String, AtomicLong> buckets;
+    private final LongAdder rejected = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        userPolicy = Policy.of(userRequestsPerMinute, userBurst);
+        ipPolicy = Policy.of(ipRequestsPerMinute, ipBurst);
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+    
+    /**
+     * Takes a token for a user (or, if {@code username} is null, an IP address).
+     * 
+     * @return 0 if the request is admitted, else the nanoseconds until it would be
+     */
+    public long tryAcquire(String username, String ipAddress) {
+        Policy policy = username != null ? userPolicy : ipPolicy;
+        String key = username != null ? "user:" + username : "ip:" + ipAddress;
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - policy.toleranceNanos();
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + policy.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+    
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
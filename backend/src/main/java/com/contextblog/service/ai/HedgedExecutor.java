@@ -0,0 +1,252 @@
+package com.contextblog.service.ai;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Hedged requests across an ordered list of candidate models.
+ * 
+ * The first candidate starts immediately. If it has not answered after the
+ * hedge delay, the next one is started alongside it; a failure starts the next
+ * one right away. The first successful answer wins and every other attempt is
+ * cancelled. At most {@code maxInFlight} attempts run at once, which bounds the
+ * extra upstream cost. Tail latency is then roughly the latency of the fastest
+ * healthy model plus a few hedge delays, instead of the sum of all timeouts.
+ * 
+ * Candidates are ranked and filtered by {@link ModelHealthRegistry} first, and
+ * every attempt's outcome is reported back to it, so models with an open
+ * circuit are not called at all.
+ */
+@Component
+public class HedgedExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(HedgedExecutor.class);
+    
+    @Autowired
+    private ModelHealthRegistry modelHealth;
+    
+    @Value("${ai.hedge.delay-ms:2500}")
+    private long hedgeDelayMs;
+    
+    @Value("${ai.hedge.max-in-flight:2}")
+    private int maxInFlight;
+    
+    @Value("${ai.hedge.overall-timeout-ms:45000}")
+    private long overallTimeoutMs;
+    
+    private ScheduledExecutorService timer;
+    
+    @PostConstruct
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ai-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+    
+    /**
+     * Returns the first successful result, or throws the last failure once every
+     * candidate failed. A failure matching {@code fatal} (e.g. an invalid API key)
+     * is thrown immediately without trying further candidates. Fails fast with an
+     * {@link IllegalStateException} when every candidate's circuit is open.
+     */
+    public <T> T execute(String operation, List<String> candidates, Function<String, CompletableFuture<T>> attempt,
+                         Predicate<Throwable> fatal) throws Exception {
+        List<String> ordered = modelHealth.order(candidates);
+        if (ordered.isEmpty()) {
+            throw new IllegalStateException(operation + ": no models available, all circuits are open");
+        }
+        HedgedCall<T> call = new HedgedCall<>(operation, ordered, attempt, fatal);
+        call.launchNext();
+        try {
+            return call.result.get(overallTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            call.timeOut();
+            throw new TimeoutException(operation + " timed out after " + overallTimeoutMs + " ms across all models");
+        } catch (InterruptedException e) {
+            call.cancelAll();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+    
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+    
+    private final class HedgedCall<T> {
+        private final String operation;
+        private final List<String> candidates;
+        private final Function<String, CompletableFuture<T>> attempt;
+        private final Predicate<Throwable> fatal;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<Attempt<T>> attempts = new ArrayList<>();
+        private int launched;
+        private int running;
+        private Exception lastError;
+        
+        private HedgedCall(String operation, List<String> candidates, Function<String, CompletableFuture<T>> attempt,
+                           Predicate<Throwable> fatal) {
+            this.operation = operation;
+            this.candidates = candidates;
+            this.attempt = attempt;
+            this.fatal = fatal;
+        }
+        
+        private synchronized void launchNext() {
+            if (result.isDone() || running >= maxInFlight) {
+                return;
+            }
+            String model = null;
+            while (model == null && launched < candidates.size()) {
+                String candidate = candidates.get(launched++);
+                // A half-open model may already have its single probe in flight
+                if (modelHealth.tryAcquire(candidate)) {
+                    model = candidate;
+                }
+            }
+            if (model == null) {
+                if (running == 0) {
+                    result.completeExceptionally(lastError != null ? lastError
+                            : new IllegalStateException(operation + ": no models available, all circuits are open"));
+                }
+                return;
+            }
+            running++;
+            logger.info("{}: starting attempt {} with model {}", operation, launched, model);
+            
+            long startedNanos = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = attempt.apply(model);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            Attempt<T> current = new Attempt<>(model, future, startedNanos);
+            attempts.add(current);
+            
+            if (launched < candidates.size()) {
+                // Only hedge if nothing else was launched in the meantime
+                int launchedAtSchedule = launched;
+                timer.schedule(() -> hedge(launchedAtSchedule), hedgeDelayMs, TimeUnit.MILLISECONDS);
+            }
+            future.whenComplete((value, error) -> onAttemptDone(current, value, error));
+        }
+        
+        private synchronized void hedge(int launchedAtSchedule) {
+            if (launched == launchedAtSchedule) {
+                launchNext();
+            }
+        }
+        
+        private synchronized void onAttemptDone(Attempt<T> done, T value, Throwable error) {
+            running--;
+            String model = done.model;
+            if (!done.reported) {
+                done.reported = true;
+                report(done, error);
+            }
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                logger.info("{}: model {} answered first", operation, model);
+                result.complete(value);
+                cancelAll();
+                return;
+            }
+            
+            lastError = unwrap(error);
+            logger.warn("{}: model {} failed: {}", operation, model, lastError.getMessage());
+            if (fatal.test(lastError)) {
+                result.completeExceptionally(lastError);
+                cancelAll();
+                return;
+            }
+            launchNext();
+            if (running == 0 && launched >= candidates.size()) {
+                result.completeExceptionally(lastError);
+            }
+        }
+        
+        private void report(Attempt<T> done, Throwable error) {
+            long elapsedMs = done.elapsedMs();
+            if (error == null) {
+                modelHealth.recordSuccess(done.model, elapsedMs);
+                return;
+            }
+            Exception cause = unwrap(error);
+            if (error instanceof CancellationException) {
+                modelHealth.recordAbandoned(done.model, elapsedMs);
+            } else if (fatal.test(cause)) {
+                modelHealth.release(done.model);
+            } else {
+                modelHealth.recordFailure(done.model, cause, elapsedMs);
+            }
+        }
+        
+        /**
+         * The overall deadline passed: whatever is still running counts as a timeout.
+         */
+        private synchronized void timeOut() {
+            for (Attempt<T> pending : attempts) {
+                if (!pending.future.isDone() && !pending.reported) {
+                    pending.reported = true;
+                    modelHealth.recordFailure(pending.model,
+                            new TimeoutException("no answer within " + overallTimeoutMs + " ms"), pending.elapsedMs());
+                }
+            }
+            cancelAll();
+        }
+        
+        private synchronized void cancelAll() {
+            attempts.forEach(pending -> pending.future.cancel(true));
+        }
+    }
+    
+    private static final class Attempt<T> {
+        private final String model;
+        private final CompletableFuture<T> future;
+        private final long startedNanos;
+        private boolean reported;
+        
+        private Attempt(String model, CompletableFuture<T> future, long startedNanos) {
+            this.model = model;
+            this.future = future;
+            this.startedNanos = startedNanos;
+        }
+        
+        private long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.contextblog.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-model health and circuit breaker for OpenRouter calls.
+ * 
+ * Every model keeps a rolling window of recent outcomes and an EWMA of its
+ * latency. A model whose failure rate in the window crosses the threshold is
+ * opened and skipped until its cool-down expires; 404 (model not found) and
+ * 429 (rate limited) open it immediately. After the cool-down the model is
+ * half-open and a single probe request is let through: success closes the
+ * circuit, failure opens it again with a doubled cool-down.
+ * 
+ * {@link #order} also ranks the usable models by expected time to a good
+ * answer (latency / success rate), so a healthy fast model is tried before a
+ * flaky or slow one. Models without samples keep their configured order after
+ * the measured ones.
+ */
+@Component
+public class ModelHealthRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ModelHealthRegistry.class);
+    
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+    
+    @Value("${ai.circuit.window-size:20}")
+    private int windowSize;
+    
+    @Value("${ai.circuit.min-calls:5}")
+    private int minCalls;
+    
+    @Value("${ai.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+    
+    @Value("${ai.circuit.open-duration-ms:30000}")
+    private long openDurationMs;
+    
+    @Value("${ai.circuit.max-open-duration-ms:600000}")
+    private long maxOpenDurationMs;
+    
+    @Value("${ai.circuit.not-found-open-duration-ms:3600000}")
+    private long notFoundOpenDurationMs;
+    
+    @Value("${ai.circuit.latency-alpha:0.3}")
+    private double latencyAlpha;
+    
+    private final Map<String, ModelHealth> models = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the candidates that may be called right now, best first.
+     * Open models are left out; the result is empty if every circuit is open.
+     */
+    public List<String> order(List<String> candidates) {
+        long now = System.currentTimeMillis();
+        List<String> usable = new ArrayList<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (String model : candidates) {
+            ModelHealth health = health(model);
+            synchronized (health) {
+                if (!health.isCallable(now)) {
+                    continue;
+                }
+                usable.add(model);
+                scores.put(model, health.expectedCost());
+            }
+        }
+        // Stable sort, so unmeasured models (infinite cost) keep their configured order
+        usable.sort(Comparator.comparingDouble(scores::get));
+        return usable;
+    }
+    
+    /**
+     * Claims a call slot for the model. Always succeeds when the circuit is
+     * closed; when half-open only the first caller gets the probe.
+     */
+    public boolean tryAcquire(String model) {
+        ModelHealth health = health(model);
+        synchronized (health) {
+            long now = System.currentTimeMillis();
+            if (!health.isCallable(now)) {
+                return false;
+            }
+            if (health.state == CircuitState.HALF_OPEN) {
+                health.probeInFlight = true;
+            }
+            return true;
+        }
+    }
+    
+    public void recordSuccess(String model, long latencyMs) {
+        ModelHealth health = health(model);
+        synchronized (health) {
+            if (health.state != CircuitState.CLOSED) {
+                logger.info("Circuit for model {} closed after a successful probe", model);
+                health.close(openDurationMs);
+            }
+            health.recordLatency(latencyMs, latencyAlpha);
+            health.recordOutcome(true);
+            health.totalSuccesses++;
+        }
+    }
+    
+    public void recordFailure(String model, Throwable error, long latencyMs) {
+        ModelHealth health = health(model);
+        long now = System.currentTimeMillis();
+        synchronized (health) {
+            health.totalFailures++;
+            health.lastError = describe(error);
+            if (isTimeout(error)) {
+                // A timeout is still a latency sample, just a censored one
+                health.recordLatency(latencyMs, latencyAlpha);
+            }
+            health.recordOutcome(false);
+            
+            long forcedOpenMs = forcedOpenDuration(error);
+            if (health.state == CircuitState.HALF_OPEN) {
+                health.open(now, Math.max(forcedOpenMs, Math.min(health.openDurationMs * 2, maxOpenDurationMs)));
+                logger.warn("Probe for model {} failed, circuit open for {} ms: {}", model, health.openDurationMs, health.lastError);
+            } else if (forcedOpenMs > 0) {
+                health.open(now, forcedOpenMs);
+                logger.warn("Circuit for model {} open for {} ms: {}", model, forcedOpenMs, health.lastError);
+            } else if (health.state == CircuitState.CLOSED && health.samples >= minCalls
+                    && health.failureRate() >= failureRateThreshold) {
+                health.open(now, openDurationMs);
+                logger.warn("Circuit for model {} open for {} ms: failure rate {} over the last {} calls",
+                        model, openDurationMs, String.format("%.2f", health.failureRate()), health.samples);
+            }
+        }
+    }
+    
+    /**
+     * Records a call that was abandoned before it finished (e.g. a losing hedged
+     * attempt). It is neither a success nor a failure, but the model was at least
+     * this slow, and a half-open probe slot is handed back.
+     */
+    public void recordAbandoned(String model, long elapsedMs) {
+        ModelHealth health = health(model);
+        synchronized (health) {
+            if (elapsedMs > health.latencyEwmaMs) {
+                health.recordLatency(elapsedMs, latencyAlpha);
+            }
+            health.probeInFlight = false;
+        }
+    }
+    
+    /**
+     * Releases a claimed slot without recording anything, for failures that say
+     * nothing about the model itself (an invalid API key, no network).
+     */
+    public void release(String model) {
+        ModelHealth health = health(model);
+        synchronized (health) {
+            health.probeInFlight = false;
+        }
+    }
+    
+    /**
+     * Forgets everything known about one model, or about all models when null.
+     */
+    public void reset(String model) {
+        if (model == null) {
+            models.clear();
+        } else {
+            models.remove(model);
+        }
+    }
+    
+    public List<Map<String, Object>> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>();
+        models.forEach((model, health) -> {
+            synchronized (health) {
+                health.isCallable(now); // moves expired OPEN circuits to HALF_OPEN
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("model", model);
+                entry.put("state", health.state);
+                entry.put("failureRate", health.failureRate());
+                entry.put("windowCalls", health.samples);
+                entry.put("latencyEwmaMs", health.latencyMeasured ? Math.round(health.latencyEwmaMs) : null);
+                entry.put("totalSuccesses", health.totalSuccesses);
+                entry.put("totalFailures", health.totalFailures);
+                entry.put("openUntil", health.state == CircuitState.OPEN ? health.openUntil : null);
+                entry.put("lastError", health.lastError);
+                result.add(entry);
+            }
+        });
+        result.sort(Comparator.comparing(entry -> (String) entry.get("model")));
+        return result;
+    }
+    
+    private ModelHealth health(String model) {
+        return models.computeIfAbsent(model, key -> new ModelHealth(windowSize, openDurationMs));
+    }
+    
+    /**
+     * Cool-down for errors that should open the circuit at once, or 0.
+     */
+    private long forcedOpenDuration(Throwable error) {
+        if (error instanceof HttpStatusCodeException httpError) {
+            if (httpError.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return notFoundOpenDurationMs;
+            }
+            if (httpError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                return Math.min(retryAfterMs(httpError), maxOpenDurationMs);
+            }
+        }
+        return 0;
+    }
+    
+    private long retryAfterMs(HttpStatusCodeException error) {
+        String retryAfter = error.getResponseHeaders() != null ? error.getResponseHeaders().getFirst("Retry-After") : null;
+        if (retryAfter != null) {
+            try {
+                return Math.max(1, Long.parseLong(retryAfter.trim())) * 1000;
+            } catch (NumberFormatException e) {
+                // HTTP-date form; fall back to the default cool-down
+            }
+        }
+        return openDurationMs;
+    }
+    
+    private static boolean isTimeout(Throwable error) {
+        return error instanceof TimeoutException
+                || error instanceof SocketTimeoutException
+                || (error instanceof ResourceAccessException && error.getCause() instanceof SocketTimeoutException);
+    }
+    
+    private static String describe(Throwable error) {
+        if (error instanceof HttpStatusCodeException httpError) {
+            return "HTTP " + httpError.getStatusCode().value();
+        }
+        String message = error.getMessage();
+        return error.getClass().getSimpleName() + (message != null ? ": " + message : "");
+    }
+    
+    /**
+     * Mutable state of one model, guarded by its own monitor.
+     */
+    private static final class ModelHealth {
+        private final boolean[] outcomes;
+        private int next;
+        private int samples;
+        private int failures;
+        
+        private double latencyEwmaMs;
+        private boolean latencyMeasured;
+        
+        private CircuitState state = CircuitState.CLOSED;
+        private long openUntil;
+        private long openDurationMs;
+        private boolean probeInFlight;
+        
+        private long totalSuccesses;
+        private long totalFailures;
+        private String lastError;
+        
+        private ModelHealth(int windowSize, long openDurationMs) {
+            this.outcomes = new boolean[windowSize];
+            this.openDurationMs = openDurationMs;
+        }
+        
+        private boolean isCallable(long now) {
+            if (state == CircuitState.OPEN && now >= openUntil) {
+                state = CircuitState.HALF_OPEN;
+                probeInFlight = false;
+            }
+            return state == CircuitState.CLOSED || (state == CircuitState.HALF_OPEN && !probeInFlight);
+        }
+        
+        private void recordOutcome(boolean success) {
+            if (samples == outcomes.length) {
+                if (!outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                samples++;
+            }
+            outcomes[next] = success;
+            if (!success) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+        }
+        
+        private void recordLatency(long latencyMs, double alpha) {
+            latencyEwmaMs = latencyMeasured ? alpha * latencyMs + (1 - alpha) * latencyEwmaMs : latencyMs;
+            latencyMeasured = true;
+        }
+        
+        private double failureRate() {
+            return samples == 0 ? 0.0 : (double) failures / samples;
+        }
+        
+        /**
+         * Expected milliseconds until a successful answer; unmeasured models sort last.
+         */
+        private double expectedCost() {
+            if (!latencyMeasured) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return latencyEwmaMs / Math.max(0.05, 1.0 - failureRate());
+        }
+        
+        private void open(long now, long durationMs) {
+            state = CircuitState.OPEN;
+            openDurationMs = durationMs;
+            openUntil = now + durationMs;
+            probeInFlight = false;
+        }
+        
+        private void close(long baseOpenDurationMs) {
+            state = CircuitState.CLOSED;
+            openDurationMs = baseOpenDurationMs;
+            probeInFlight = false;
+            // Start from a clean window so old failures don't re-open it immediately
+            Arrays.fill(outcomes, false);
+            next = 0;
+            samples = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.contextblog.service.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Outbound HTTP client for the AI provider, built on the JDK {@link HttpClient}.
+ * 
+ * One client instance is shared by every call, so connections are pooled and
+ * kept alive, and HTTP/2 streams are multiplexed over a single TLS connection
+ * when the server supports it. Requests are asynchronous; cancelling the
+ * returned future aborts the exchange. A per-host limit caps how many requests
+ * run at once, queueing the rest without holding a thread.
+ * 
+ * Streamed responses have their own per-host limit, so long-lived streams never
+ * take the slots of ordinary calls, and their events are handed to a separate
+ * relay pool: a slow stream consumer never occupies the client's threads.
+ * 
+ * Failures are reported with the same Spring exception types RestTemplate
+ * used (HttpClientErrorException, ResourceAccessException with an
+ * UnknownHostException / ConnectException / SocketTimeoutException cause),
+ * so callers' error handling does not depend on the transport.
+ */
+@Component
+public class OpenRouterClient {
+    private static final Logger logger = LoggerFactory.getLogger(OpenRouterClient.class);
+    
+    @Value("${ai.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+    
+    @Value("${ai.http.request-timeout-ms:15000}")
+    private long requestTimeoutMs;
+    
+    @Value("${ai.http.max-concurrent-per-host:32}")
+    private int maxConcurrentPerHost;
+    
+    @Value("${ai.http.keep-alive-seconds:300}")
+    private int keepAliveSeconds;
+    
+    @Value("${ai.http.max-connections:16}")
+    private int maxConnections;
+    
+    @Value("${ai.http.threads:4}")
+    private int threads;
+    
+    @Value("${ai.stream.max-concurrent:8}")
+    private int maxConcurrentStreams;
+    
+    @Value("${ai.stream.relay-queue-capacity:32}")
+    private int relayQueueCapacity;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, HostLimiter> streamLimiters = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private ExecutorService relayExecutor;
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    public void init() {
+        // The JDK client reads its pool settings once, from system properties;
+        // an explicit -D on the command line still wins
+        setDefaultProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        setDefaultProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxConnections));
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ai-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // One relay thread per stream that may run at once, so a stalled consumer only holds its own
+        AtomicInteger relayNumber = new AtomicInteger();
+        relayExecutor = Executors.newFixedThreadPool(maxConcurrentStreams, runnable -> {
+            Thread thread = new Thread(runnable, "ai-stream-relay-" + relayNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        relayExecutor.shutdownNow();
+    }
+    
+    /**
+     * POSTs {@code body} as JSON and completes with the response body of a 2xx
+     * answer. Any other status completes exceptionally with the matching
+     * {@link org.springframework.web.client.HttpStatusCodeException}.
+     */
+    public CompletableFuture<String> postJson(String url, Map<String, String> headers, Object body) {
+        return postJson(url, headers, body, Function.identity());
+    }
+    
+    /**
+     * Like {@link #postJson(String, Map, Object)}, with the response body mapped
+     * on the client's thread pool. Cancelling the returned future aborts the
+     * exchange, which a future derived with {@code thenApply} would not do.
+     */
+    public <T> CompletableFuture<T> postJson(String url, Map<String, String> headers, Object body,
+                                             Function<String, T> responseMapper) {
+        HttpRequest request;
+        try {
+            request = buildRequest(url, headers, body);
+        } catch (RestClientException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        HostLimiter limiter = limiter(request);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        limiter.acquire().thenRun(() -> {
+            if (result.isDone()) {
+                // Cancelled while waiting for a slot
+                limiter.release();
+                return;
+            }
+            CompletableFuture<HttpResponse<String>> exchange =
+                    httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+            exchange.whenComplete((response, error) -> {
+                limiter.release();
+                if (error != null) {
+                    result.completeExceptionally(translate(request, error));
+                } else if (response.statusCode() / 100 == 2) {
+                    try {
+                        result.complete(responseMapper.apply(response.body()));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                } else {
+                    result.completeExceptionally(statusException(response));
+                }
+            });
+        });
+        return result;
+    }
+    
+    /**
+     * Blocking variant of {@link #postJson}; rethrows the failure unwrapped.
+     */
+    public String postJsonAndWait(String url, Map<String, String> headers, Object body) throws InterruptedException {
+        CompletableFuture<String> future = postJson(url, headers, body);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RestClientException(cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * POSTs {@code body} and consumes a {@code text/event-stream} response,
+     * calling {@code onEvent} with the data of each event until the stream ends
+     * or the provider sends {@code [DONE]}.
+     * 
+     * {@code onEvent} runs on the relay pool, never on the client's threads.
+     * Events wait in a per-stream queue of {@code ai.stream.relay-queue-capacity};
+     * while it is full no further lines are requested, so a slow consumer slows
+     * down reading from the socket instead of buffering the whole answer. The
+     * returned future completes once every event has been handed over. If
+     * {@code onEvent} throws (e.g. the browser went away), or the returned future
+     * is cancelled, the upstream exchange is aborted so no further tokens are
+     * generated for it. Streams count against {@code ai.stream.max-concurrent}
+     * per host instead of the limit of ordinary requests.
+     */
+    public CompletableFuture<Void> streamJson(String url, Map<String, String> headers, Object body, Consumer<String> onEvent) {
+        HttpRequest request;
+        try {
+            request = buildRequest(url, headers, body);
+        } catch (RestClientException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        HostLimiter limiter = streamLimiters.computeIfAbsent(request.uri().getAuthority(),
+                host -> new HostLimiter(maxConcurrentStreams));
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        limiter.acquire().thenRun(() -> {
+            if (result.isDone()) {
+                limiter.release();
+                return;
+            }
+            SseEventSubscriber events = new SseEventSubscriber(onEvent, result, relayExecutor, relayQueueCapacity);
+            CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, responseInfo ->
+                    responseInfo.statusCode() / 100 == 2
+                            ? HttpResponse.BodySubscribers.fromLineSubscriber(events, subscriber -> null, StandardCharsets.UTF_8, null)
+                            : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+            result.whenComplete((value, error) -> {
+                // Consumer failure or cancellation: stop reading and drop the connection
+                if (!exchange.isDone()) {
+                    events.cancel();
+                    exchange.cancel(true);
+                }
+            });
+            exchange.whenComplete((response, error) -> {
+                limiter.release();
+                if (error != null) {
+                    result.completeExceptionally(translate(request, error));
+                } else if (response.statusCode() / 100 == 2) {
+                    // Completes the result once the queued events have been relayed
+                    events.finish();
+                } else {
+                    result.completeExceptionally(statusException(response));
+                }
+            });
+        });
+        return result;
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        limiters.forEach((host, limiter) -> result.put(host, limiter.stats()));
+        streamLimiters.forEach((host, limiter) -> result.put(host + " (streams)", limiter.stats()));
+        return result;
+    }
+    
+    private HttpRequest buildRequest(String url, Map<String, String> headers, Object body) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body), StandardCharsets.UTF_8));
+            headers.forEach(builder::header);
+            return builder.build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new RestClientException("Cannot build request for " + url, e);
+        }
+    }
+    
+    private HostLimiter limiter(HttpRequest request) {
+        String host = request.uri().getAuthority();
+        HostLimiter limiter = limiters.computeIfAbsent(host, key -> new HostLimiter(maxConcurrentPerHost));
+        if (limiter.isSaturated()) {
+            logger.debug("Request to {} queued behind {} in-flight requests", host, maxConcurrentPerHost);
+        }
+        return limiter;
+    }
+    
+    private static RestClientException statusException(HttpResponse<String> response) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        byte[] body = response.body() != null ? response.body().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, "", headers, body, StandardCharsets.UTF_8);
+        }
+        if (status.is5xxServerError()) {
+            return HttpServerErrorException.create(status, "", headers, body, StandardCharsets.UTF_8);
+        }
+        return new UnknownHttpStatusCodeException(response.statusCode(), "", headers, body, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Maps JDK client failures onto the exceptions RestTemplate would have thrown.
+     */
+    private static Throwable translate(HttpRequest request, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof IOException)) {
+            return cause;
+        }
+        String detail = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        String message = "I/O error on POST request for \"" + request.uri() + "\": " + detail;
+        IOException io = (IOException) cause;
+        if (cause instanceof HttpTimeoutException) {
+            io = new SocketTimeoutException(cause.getMessage());
+        } else if (cause instanceof ConnectException && hasCause(cause, UnresolvedAddressException.class)) {
+            io = new UnknownHostException(request.uri().getHost());
+        }
+        if (io != cause) {
+            io.initCause(cause);
+        }
+        return new ResourceAccessException(message, io);
+    }
+    
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static void setDefaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+    
+    /**
+     * Non-blocking counting semaphore: waiters get a future that completes when a permit frees up.
+     */
+    private static final class HostLimiter {
+        private final int permits;
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int inUse;
+        
+        private HostLimiter(int permits) {
+            this.permits = permits;
+        }
+        
+        private synchronized CompletableFuture<Void> acquire() {
+            if (inUse < permits) {
+                inUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+        
+        private void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    inUse--;
+                    return;
+                }
+            }
+            // The permit passes straight to the next waiter; complete it outside the lock
+            next.complete(null);
+        }
+        
+        private synchronized boolean isSaturated() {
+            return inUse >= permits;
+        }
+        
+        private synchronized Map<String, Object> stats() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("inFlight", inUse);
+            result.put("queued", waiters.size());
+            result.put("limit", permits);
+            return result;
+        }
+    }
+    
+    /**
+     * Turns the lines of an event stream into event payloads and relays them to
+     * the consumer on the relay pool, through a bounded queue.
+     * 
+     * Lines are requested one at a time while the queue has room; once it is
+     * full, reading pauses until the relay task has drained an event.
+     */
+    private static final class SseEventSubscriber implements Flow.Subscriber<String> {
+        private final Consumer<String> onEvent;
+        private final CompletableFuture<Void> result;
+        private final Executor relayExecutor;
+        private final int capacity;
+        private final StringBuilder data = new StringBuilder();
+        // Guarded by this
+        private final Queue<String> queue = new ArrayDeque<>();
+        private boolean relaying;
+        private boolean paused;
+        private boolean finished;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+        
+        private SseEventSubscriber(Consumer<String> onEvent, CompletableFuture<Void> result, Executor relayExecutor, int capacity) {
+            this.onEvent = onEvent;
+            this.result = result;
+            this.relayExecutor = relayExecutor;
+            this.capacity = Math.max(1, capacity);
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+        
+        @Override
+        public void onNext(String line) {
+            if (cancelled) {
+                return;
+            }
+            if (line.isEmpty()) {
+                dispatch();
+            } else if (line.startsWith("data:")) {
+                // Comment lines (": keep-alive") and event/id fields are ignored
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+            }
+            boolean more;
+            synchronized (this) {
+                more = queue.size() < capacity;
+                paused = !more;
+            }
+            if (more && !cancelled) {
+                subscription.request(1);
+            }
+        }
+        
+        private void dispatch() {
+            if (data.length() == 0) {
+                return;
+            }
+            String payload = data.toString();
+            data.setLength(0);
+            if ("[DONE]".equals(payload)) {
+                return;
+            }
+            boolean start;
+            synchronized (this) {
+                queue.add(payload);
+                start = !relaying;
+                relaying = true;
+            }
+            if (start) {
+                startRelay();
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            // Reported through the exchange future
+        }
+        
+        @Override
+        public void onComplete() {
+            dispatch();
+        }
+        
+        /**
+         * The exchange ended normally; the result completes once the queue is empty.
+         */
+        private void finish() {
+            boolean start;
+            synchronized (this) {
+                finished = true;
+                start = !relaying;
+                relaying = true;
+            }
+            if (start) {
+                startRelay();
+            }
+        }
+        
+        private void startRelay() {
+            try {
+                relayExecutor.execute(this::relay);
+            } catch (RejectedExecutionException e) {
+                cancel();
+                result.completeExceptionally(e);
+            }
+        }
+        
+        private void relay() {
+            while (!cancelled && !result.isDone()) {
+                String payload;
+                boolean resume = false;
+                synchronized (this) {
+                    payload = queue.poll();
+                    if (payload == null) {
+                        relaying = false;
+                        if (finished) {
+                            result.complete(null);
+                        }
+                        return;
+                    }
+                    if (paused) {
+                        paused = false;
+                        resume = true;
+                    }
+                }
+                if (resume) {
+                    // Room again: read on while this event is being delivered
+                    subscription.request(1);
+                }
+                try {
+                    onEvent.accept(payload);
+                } catch (RuntimeException e) {
+                    cancel();
+                    result.completeExceptionally(e);
+                    return;
+                }
+            }
+        }
+        
+        private void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.contextblog.service.ai;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical in-flight AI calls.
+ * 
+ * Calls are keyed by a request fingerprint (see {@link AiResponseCache#key}).
+ * The first caller for a key starts the upstream call on a worker thread;
+ * callers arriving while it runs join the same flight instead of sending a
+ * duplicate request. Every caller gets its own future: a result or failure is
+ * delivered to all of them, and cancelling one only removes that caller. When
+ * the last caller leaves before the call finished, the worker is interrupted,
+ * which aborts the upstream request. Finished flights are forgotten right
+ * away; caching results is {@link AiResponseCache}'s job.
+ */
+@Component
+public class SingleFlight {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+    
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Unbounded, but every running flight has at least one blocked caller, so it is
+        // bounded by the request threads in practice
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ai-single-flight-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+    
+    /**
+     * Runs {@code call}, or joins an identical call already in flight, and waits
+     * for the shared result. Failures are rethrown as thrown by {@code call}. If
+     * the waiting thread is interrupted it leaves the flight.
+     */
+    public <T> T execute(String key, Callable<T> call) throws Exception {
+        CompletableFuture<T> result = submit(key, call);
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+    
+    /**
+     * Returns this caller's view of the flight for {@code key}, starting it if
+     * needed. Cancelling the returned future leaves the flight.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String key, Callable<T> call) {
+        while (true) {
+            Flight flight = flights.computeIfAbsent(key, k -> new Flight(k));
+            if (flight.join((Callable<Object>) call)) {
+                CompletableFuture<T> mine = new CompletableFuture<>();
+                flight.result.whenComplete((value, error) -> {
+                    if (error == null) {
+                        mine.complete((T) value);
+                    } else {
+                        mine.completeExceptionally(unwrap(error));
+                    }
+                });
+                mine.whenComplete((value, error) -> {
+                    if (error instanceof CancellationException) {
+                        flight.leave();
+                    }
+                });
+                return mine;
+            }
+            // The flight was abandoned by its last caller just now; start a fresh one
+        }
+    }
+    
+    public int inFlight() {
+        return flights.size();
+    }
+    
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+    
+    private final class Flight {
+        private final String key;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private Future<?> task;
+        private int waiters;
+        private boolean abandoned;
+        
+        private Flight(String key) {
+            this.key = key;
+            result.whenComplete((value, error) -> flights.remove(key, this));
+        }
+        
+        /**
+         * Adds a caller; the first one starts the call. False if the flight was abandoned.
+         */
+        private synchronized boolean join(Callable<Object> call) {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            if (task == null) {
+                try {
+                    task = workers.submit(() -> {
+                        try {
+                            result.complete(call.call());
+                        } catch (Throwable e) {
+                            result.completeExceptionally(e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    task = result;
+                    result.completeExceptionally(e);
+                }
+            } else {
+                logger.debug("Joined in-flight AI call {} ({} callers)", key, waiters);
+            }
+            return true;
+        }
+        
+        private synchronized void leave() {
+            if (--waiters > 0 || result.isDone()) {
+                return;
+            }
+            abandoned = true;
+            flights.remove(key, this);
+            task.cancel(true);
+            result.cancel(false);
+            logger.debug("Cancelled AI call {}: no callers left", key);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.contextblog.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Relays a token stream from the AI provider to the browser as server-sent events.
+ * 
+ * Each token is sent as a {@code token} event with {@code {"text": ...}}; the
+ * stream ends with a {@code done} event, or an {@code error} event carrying a
+ * message. Tokens are written from OpenRouterClient's stream relay pool through
+ * a small per-stream queue, so a slow browser connection pauses reading from the
+ * provider rather than piling tokens up in memory or holding an HTTP client
+ * thread. When the browser disconnects (or the emitter times out) the upstream
+ * stream is cancelled.
+ */
+@Component
+public class TokenStreamRelay {
+    private static final Logger logger = LoggerFactory.getLogger(TokenStreamRelay.class);
+    
+    @Value("${ai.stream.timeout-ms:120000}")
+    private long timeoutMs;
+    
+    /**
+     * @param stream starts the upstream stream, given the per-token callback
+     */
+    public SseEmitter relay(String errorPrefix, Function<Consumer<String>, CompletableFuture<Void>> stream) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        CompletableFuture<Void> upstream = stream.apply(token -> {
+            try {
+                emitter.send(SseEmitter.event().name("token").data(Map.of("text", token)));
+            } catch (IOException e) {
+                // Broken pipe: the browser is gone, abort the upstream stream
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        emitter.onTimeout(() -> upstream.cancel(true));
+        emitter.onError(error -> upstream.cancel(true));
+        emitter.onCompletion(() -> upstream.cancel(true));
+        
+        upstream.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            try {
+                if (cause == null) {
+                    emitter.send(SseEmitter.event().name("done").data(Map.of()));
+                    emitter.complete();
+                } else if (cause instanceof CancellationException || cause instanceof UncheckedIOException) {
+                    emitter.complete();
+                } else {
+                    logger.warn("{}: {}", errorPrefix, cause.getMessage());
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", errorPrefix + ": " + cause.getMessage())));
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Emitter already completed or the connection is gone
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+}
@@ -0,0 +1,178 @@
+package com.contextblog.service.counter;
+
+import com.contextblog.model.Blog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Like and comment counters of blogs, aggregated in memory and written back in batches.
+ * 
+ * Engagement events only add to a per-blog {@link LongAdder}, so concurrent likes on
+ * the same blog neither contend on a lock nor overwrite each other. A periodic flush
+ * swaps in an empty set of counters and applies the collected deltas with one JDBC
+ * batch of {@code like_count = like_count + ?} updates, so a popular blog costs one
+ * small UPDATE per flush instead of a full row rewrite per like.
+ * 
+ * Counts served to clients are the stored columns plus the deltas not flushed yet
+ * (see {@link #applyPending}). Deltas are only recorded once the transaction that
+ * inserted the like or comment commits; anything unflushed at shutdown is flushed by
+ * {@link #stop()}, and a hard crash loses at most one flush interval of counts.
+ */
+@Service
+public class BlogCounterService {
+    private static final Logger logger = LoggerFactory.getLogger(BlogCounterService.class);
+    
+    private static final String FLUSH_SQL =
+            "UPDATE blogs SET like_count = like_count + ?, comment_count = comment_count + ? WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // Increments hold the read lock (shared), the flush takes the write lock only to swap maps
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, Deltas> pending = new ConcurrentHashMap<>();
+    // Deltas being written by the current flush; still counted by reads until the batch commits
+    private volatile Map<Long, Deltas> flushing = Map.of();
+    
+    private static final class Deltas {
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder comments = new LongAdder();
+    }
+    
+    public void likeChanged(Long blogId, int delta) {
+        afterCommit(() -> record(blogId, delta, 0));
+    }
+    
+    public void commentAdded(Long blogId) {
+        afterCommit(() -> record(blogId, 0, 1));
+    }
+    
+    public long pendingLikes(Long blogId) {
+        return sum(blogId, true);
+    }
+    
+    public long pendingComments(Long blogId) {
+        return sum(blogId, false);
+    }
+    
+    /**
+     * Sets the not yet flushed deltas on the blog so its counts are current. Idempotent:
+     * the deltas are assigned, never added to the stored values.
+     */
+    public Blog applyPending(Blog blog) {
+        if (blog != null && blog.getId() != null) {
+            blog.setPendingLikes(pendingLikes(blog.getId()));
+            blog.setPendingComments(pendingComments(blog.getId()));
+        }
+        return blog;
+    }
+    
+    public <C extends Collection<Blog>> C applyPending(C blogs) {
+        blogs.forEach(this::applyPending);
+        return blogs;
+    }
+    
+    @Scheduled(fixedDelayString = "${blog.counters.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Deltas> batch;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            flushing = batch;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((blogId, deltas) -> {
+            long likes = deltas.likes.sum();
+            long comments = deltas.comments.sum();
+            if (likes != 0 || comments != 0) {
+                rows.add(new Object[] { likes, comments, blogId });
+            }
+        });
+        
+        try {
+            if (!rows.isEmpty()) {
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(FLUSH_SQL, rows));
+                logger.debug("Flushed engagement counters of {} blogs", rows.size());
+            }
+        } catch (RuntimeException e) {
+            // Keep the deltas and retry with the next flush
+            logger.warn("Flushing engagement counters of {} blogs failed: {}", rows.size(), e.getMessage());
+            for (Object[] row : rows) {
+                record((Long) row[2], (Long) row[0], (Long) row[1]);
+            }
+        } finally {
+            flushing = Map.of();
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+    
+    private void record(Long blogId, long likes, long comments) {
+        swapLock.readLock().lock();
+        try {
+            Deltas deltas = pending.computeIfAbsent(blogId, id -> new Deltas());
+            if (likes != 0) {
+                deltas.likes.add(likes);
+            }
+            if (comments != 0) {
+                deltas.comments.add(comments);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    private long sum(Long blogId, boolean likes) {
+        long total = 0;
+        for (Map<Long, Deltas> map : List.of(flushing, pending)) {
+            Deltas deltas = map.get(blogId);
+            if (deltas != null) {
+                total += likes ? deltas.likes.sum() : deltas.comments.sum();
+            }
+        }
+        return total;
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
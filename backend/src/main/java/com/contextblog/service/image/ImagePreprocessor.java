@@ -0,0 +1,358 @@
+package com.contextblog.service.image;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Shrinks uploaded images before they are sent to vision models.
+ * 
+ * The upload is base64-decoded and image-decoded as one stream, without copying
+ * the base64 text or materializing the raw file; very large images are
+ * subsampled while decoding. The picture is then scaled to the largest edge any
+ * model allows, and per model re-encoded as a JPEG capped at that model's edge
+ * and quality ({@code ai.image.model-limits}, else {@code ai.image.max-edge}
+ * and {@code ai.image.jpeg-quality}). JPEG output goes through one growable
+ * buffer per thread that is reused across images.
+ * 
+ * Every image also gets a SHA-256 digest of its normalized pixels (dimensions and
+ * RGB values after scaling), so an identical upload can be answered from the
+ * result cache. The digest is exact on purpose: vision answers identify people,
+ * and a similarity match could hand one user the answer about another's photo.
+ */
+@Component
+public class ImagePreprocessor {
+    private static final Logger logger = LoggerFactory.getLogger(ImagePreprocessor.class);
+    
+    private static final byte[] JPEG_DATA_URL_PREFIX = "data:image/jpeg;base64,".getBytes(StandardCharsets.US_ASCII);
+    
+    @Value("${ai.image.max-edge:1024}")
+    private int maxEdge;
+    
+    @Value("${ai.image.jpeg-quality:0.8}")
+    private float jpegQuality;
+    
+    @Value("${ai.image.model-limits:}")
+    private String modelLimits;
+    
+    @Value("${ai.image.max-upload-size:10MB}")
+    private DataSize maxUploadSize;
+    
+    /**
+     * @param maxEdge longest edge in pixels
+     * @param quality JPEG quality between 0 and 1
+     */
+    public record Limits(int maxEdge, float quality) {
+    }
+    
+    private Limits defaultLimits;
+    private final Map<String, Limits> limitsByModel = new HashMap<>();
+    private int largestEdge;
+    
+    // reset() keeps the grown array, so each thread encodes into the same memory every time
+    private static final ThreadLocal<ByteArrayOutputStream> JPEG_BUFFER =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(256 * 1024));
+    
+    @PostConstruct
+    public void init() {
+        defaultLimits = new Limits(maxEdge, jpegQuality);
+        largestEdge = maxEdge;
+        for (String entry : modelLimits.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.indexOf('=');
+            int colon = entry.lastIndexOf(':');
+            if (equals <= 0 || colon < equals) {
+                throw new IllegalStateException("ai.image.model-limits entries must look like model=maxEdge:quality");
+            }
+            Limits limits = new Limits(Integer.parseInt(entry.substring(equals + 1, colon).trim()),
+                    Float.parseFloat(entry.substring(colon + 1).trim()));
+            limitsByModel.put(entry.substring(0, equals).trim(), limits);
+            largestEdge = Math.max(largestEdge, limits.maxEdge());
+        }
+    }
+    
+    public Limits limitsFor(String model) {
+        return limitsByModel.getOrDefault(model, defaultLimits);
+    }
+    
+    /**
+     * Prepares an image given as a data URL ({@code data:image/png;base64,...}) or bare base64.
+     */
+    public PreparedImage prepare(String imageBase64) {
+        int comma = imageBase64.indexOf(',');
+        PreparedImage prepared = prepare(Base64.getMimeDecoder().wrap(new AsciiInputStream(imageBase64, comma + 1)));
+        if (prepared != null) {
+            return prepared;
+        }
+        logger.info("Image format not supported for resizing, sending it unchanged");
+        return new PreparedImage(() -> comma >= 0 ? imageBase64 : "data:image/jpeg;base64," + imageBase64);
+    }
+    
+    /**
+     * Prepares an uploaded file; {@code source} must be readable twice, since
+     * undecodable formats are re-read to send them unchanged.
+     */
+    public PreparedImage prepare(InputStreamSource source, String contentType) {
+        PreparedImage prepared;
+        try {
+            prepared = prepare(source.getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (prepared != null) {
+            return prepared;
+        }
+        String mimeType = contentType != null && contentType.startsWith("image/") ? contentType : "image/jpeg";
+        logger.info("Image format {} not supported for resizing, sending it unchanged", mimeType);
+        return new PreparedImage(() -> {
+            ByteArrayOutputStream dataUrl = new ByteArrayOutputStream();
+            dataUrl.writeBytes(("data:" + mimeType + ";base64,").getBytes(StandardCharsets.US_ASCII));
+            try (InputStream in = source.getInputStream(); OutputStream base64 = Base64.getEncoder().wrap(dataUrl)) {
+                in.transferTo(base64);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return dataUrl.toString(StandardCharsets.US_ASCII);
+        });
+    }
+    
+    /**
+     * Copies a raw upload to a temporary file, failing as soon as it exceeds
+     * {@code ai.image.max-upload-size}. The caller deletes the file.
+     */
+    public Path spool(InputStream body, long declaredLength) throws IOException {
+        long limit = maxUploadSize.toBytes();
+        if (declaredLength > limit) {
+            throw new MaxUploadSizeExceededException(limit);
+        }
+        Path file = Files.createTempFile("analyze-image-", ".upload");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) {
+                    throw new MaxUploadSizeExceededException(limit);
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+    
+    /**
+     * Decodes and downscales the image read from {@code in}; null if the format cannot be decoded.
+     */
+    PreparedImage prepare(InputStream in) {
+        BufferedImage decoded;
+        try (in) {
+            decoded = decode(in);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Could not decode image: {}", e.getMessage());
+            return null;
+        }
+        if (decoded == null) {
+            return null;
+        }
+        BufferedImage image = scaleToFit(decoded, largestEdge);
+        String fingerprint = pixelDigest(image);
+        logger.debug("Prepared image {}: {}x{} -> {}x{}", fingerprint.substring(0, 16), decoded.getWidth(), decoded.getHeight(),
+                image.getWidth(), image.getHeight());
+        return new PreparedImage(this, image, fingerprint);
+    }
+    
+    private BufferedImage decode(InputStream in) throws IOException {
+        ImageInputStream input = new MemoryCacheImageInputStream(in);
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            // Drop pixels while decoding huge images, keeping twice the target size for a smooth downscale
+            int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * largestEdge));
+            param.setSourceSubsampling(step, step, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+            input.close();
+        }
+    }
+    
+    String encode(BufferedImage image, Limits limits) {
+        BufferedImage scaled = scaleToFit(image, limits.maxEdge());
+        ByteArrayOutputStream jpeg = JPEG_BUFFER.get();
+        jpeg.reset();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(jpeg)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(limits.quality());
+            writer.write(null, new IIOImage(scaled, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        
+        // Base64 straight from the shared buffer into a data URL of exactly the final size
+        int encodedLength = 4 * ((jpeg.size() + 2) / 3);
+        ByteArrayOutputStream dataUrl = new ByteArrayOutputStream(JPEG_DATA_URL_PREFIX.length + encodedLength);
+        dataUrl.writeBytes(JPEG_DATA_URL_PREFIX);
+        try (OutputStream base64 = Base64.getEncoder().wrap(dataUrl)) {
+            jpeg.writeTo(base64);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.debug("Encoded image at {}px, quality {}: {} KB", limits.maxEdge(), limits.quality(), jpeg.size() / 1024);
+        return dataUrl.toString(StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * Scales down (never up) so the longest edge is at most {@code edge}, always returning an RGB image.
+     */
+    private static BufferedImage scaleToFit(BufferedImage source, int edge) {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        if (longest <= edge) {
+            return toRgb(source);
+        }
+        double ratio = (double) edge / longest;
+        return scale(source, Math.max(1, (int) Math.round(source.getWidth() * ratio)),
+                Math.max(1, (int) Math.round(source.getHeight() * ratio)));
+    }
+    
+    /**
+     * Bilinear scaling in steps of at most one half, which avoids the aliasing of a single large step.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+            graphics.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+    
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        // Transparent areas become white instead of JPEG's undefined black
+        graphics.drawImage(source, 0, 0, Color.WHITE, null);
+        graphics.dispose();
+        return rgb;
+    }
+    
+    /**
+     * SHA-256 over the dimensions and RGB values of the normalized image, as hex.
+     */
+    private static String pixelDigest(BufferedImage image) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            int width = image.getWidth();
+            digest.update(ByteBuffer.allocate(8).putInt(width).putInt(image.getHeight()).flip());
+            ByteBuffer row = ByteBuffer.allocate(4 * width);
+            int[] pixels = new int[width];
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.getRGB(0, y, width, 1, pixels, 0, width);
+                row.clear();
+                row.asIntBuffer().put(pixels);
+                digest.update(row.array(), 0, 4 * width);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Reads the characters of a string from {@code offset} as bytes, so base64 text can
+     * be decoded without copying it out of the request string first.
+     */
+    private static final class AsciiInputStream extends InputStream {
+        private final String text;
+        private int position;
+        
+        private AsciiInputStream(String text, int offset) {
+            this.text = text;
+            this.position = offset;
+        }
+        
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xff : -1;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int end = Math.min(text.length(), position + length);
+            if (position >= end) {
+                return -1;
+            }
+            int count = end - position;
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) text.charAt(position + i);
+            }
+            position = end;
+            return count;
+        }
+    }
+}
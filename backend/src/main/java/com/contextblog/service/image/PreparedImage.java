@@ -0,0 +1,62 @@
+package com.contextblog.service.image;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * An uploaded image, decoded and downscaled once, ready to be sent to vision models.
+ * 
+ * The JPEG data URL for each distinct set of {@link ImagePreprocessor.Limits} is
+ * encoded on first use and shared by every attempt that needs it. Images the JDK
+ * cannot decode are passed through unchanged and have no fingerprint; their data
+ * URL is also only built when the first request to a model is written.
+ */
+public final class PreparedImage {
+    
+    private final ImagePreprocessor preprocessor;
+    private final BufferedImage image;
+    private final String fingerprint;
+    private final Supplier<String> passthrough;
+    private volatile String passthroughDataUrl;
+    private final Map<ImagePreprocessor.Limits, String> dataUrls = new ConcurrentHashMap<>();
+    
+    PreparedImage(ImagePreprocessor preprocessor, BufferedImage image, String fingerprint) {
+        this.preprocessor = preprocessor;
+        this.image = image;
+        this.fingerprint = fingerprint;
+        this.passthrough = null;
+    }
+    
+    PreparedImage(Supplier<String> passthrough) {
+        this.preprocessor = null;
+        this.image = null;
+        this.fingerprint = null;
+        this.passthrough = passthrough;
+    }
+    
+    /**
+     * SHA-256 of the normalized pixels; equal only for uploads that decode to the
+     * same picture. Null for passed-through images.
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+    
+    public String dataUrlFor(ImagePreprocessor.Limits limits) {
+        if (passthrough != null) {
+            String dataUrl = passthroughDataUrl;
+            if (dataUrl == null) {
+                synchronized (this) {
+                    dataUrl = passthroughDataUrl;
+                    if (dataUrl == null) {
+                        passthroughDataUrl = dataUrl = passthrough.get();
+                    }
+                }
+            }
+            return dataUrl;
+        }
+        return dataUrls.computeIfAbsent(limits, key -> preprocessor.encode(image, key));
+    }
+}
@@ -0,0 +1,153 @@
+package com.contextblog.service.news;
+
+import com.contextblog.service.OpenRouterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The news list of {@code GET /api/blogs/news}, generated in the background and
+ * served from memory.
+ * 
+ * A refresh asks the AI for {@code blog.news.size} items on a schedule; requests
+ * only slice the current snapshot, so they never wait for (or pay for) a model
+ * call. A snapshot older than {@code stale-after-ms} is still served while a
+ * refresh is started (stale-while-revalidate). Refreshes are single-flight: at
+ * most one runs at a time and concurrent triggers join it. A failed refresh
+ * keeps the previous snapshot; until the first one succeeds the static
+ * fallback news is served.
+ */
+@Service
+public class NewsFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(NewsFeedService.class);
+    
+    @Autowired
+    private OpenRouterService openRouterService;
+    
+    @Value("${blog.news.size:12}")
+    private int size;
+    
+    @Value("${blog.news.stale-after-ms:1800000}")
+    private long staleAfterMs;
+    
+    @Value("${blog.news.retry-interval-ms:60000}")
+    private long retryIntervalMs;
+    
+    private record Snapshot(List<Map<String, String>> items, long fetchedAtMillis) {
+    }
+    
+    private volatile Snapshot snapshot;
+    private volatile long lastAttemptMillis;
+    private final AtomicReference<CompletableFuture<Void>> inFlight = new AtomicReference<>();
+    private ExecutorService refresher;
+    
+    @PostConstruct
+    public void start() {
+        refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "news-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+    
+    @Scheduled(fixedDelayString = "${blog.news.refresh-interval-ms:900000}",
+            initialDelayString = "${blog.news.refresh-interval-ms:900000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+    
+    /**
+     * Returns up to {@code count} items of the current snapshot; never calls the AI.
+     */
+    public List<Map<String, String>> getNews(int count) {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if ((current == null || now - current.fetchedAtMillis() > staleAfterMs)
+                && now - lastAttemptMillis > retryIntervalMs) {
+            refresh();
+        }
+        if (current == null) {
+            return openRouterService.getFallbackNews(Math.max(0, Math.min(count, size)));
+        }
+        return current.items().subList(0, Math.max(0, Math.min(count, current.items().size())));
+    }
+    
+    /**
+     * Starts a refresh unless one is already running; either way returns the
+     * future of the refresh in flight.
+     */
+    public CompletableFuture<Void> refresh() {
+        CompletableFuture<Void> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        if (!inFlight.compareAndSet(null, flight)) {
+            CompletableFuture<Void> winner = inFlight.get();
+            return winner != null ? winner : CompletableFuture.completedFuture(null);
+        }
+        lastAttemptMillis = System.currentTimeMillis();
+        try {
+            refresher.execute(() -> {
+                try {
+                    load();
+                    inFlight.set(null);
+                    flight.complete(null);
+                } catch (Throwable e) {
+                    inFlight.set(null);
+                    flight.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor shut down
+            inFlight.set(null);
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+    
+    private void load() {
+        if (!openRouterService.isConfigured()) {
+            logger.debug("API key not configured, serving fallback news");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            List<Map<String, String>> items = openRouterService.fetchNews(size).stream()
+                    .map(Map::copyOf)
+                    .toList();
+            if (items.isEmpty()) {
+                logger.warn("News refresh returned no items, keeping the previous snapshot");
+                return;
+            }
+            snapshot = new Snapshot(items, System.currentTimeMillis());
+            logger.info("Refreshed news: {} items in {} ms", items.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.warn("News refresh failed, keeping the previous snapshot: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.contextblog.service.search;
+
+import com.contextblog.model.Blog;
+import com.contextblog.repository.BlogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Full-text search over blogs backed by an in-process {@link InvertedIndex}.
+ * 
+ * On startup the last segment file is loaded and only blogs created after it
+ * (higher ids) are indexed, so a restart does not re-read the whole table.
+ * New blogs are added incrementally from BlogService, and the segment is
+ * rewritten on shutdown. Re-indexing (e.g. after enrichment replaces the tags)
+ * leaves tombstones behind; once they pass {@code blog.search.compaction-threshold}
+ * of the index it is compacted on a background thread.
+ */
+@Service
+public class BlogSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(BlogSearchService.class);
+    
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+    private static final int MAX_COMPACTION_ATTEMPTS = 3;
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${blog.search.segment-path:data/search/blogs.seg}")
+    private String segmentPath;
+    
+    @Value("${blog.search.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+    
+    @Value("${blog.search.compaction-threshold:0.3}")
+    private double compactionThreshold;
+    
+    private volatile InvertedIndex index = new InvertedIndex();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private ExecutorService compactor;
+    
+    @PostConstruct
+    public void start() {
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void loadIndex() {
+        long start = System.currentTimeMillis();
+        InvertedIndex loaded = readSegment();
+        if (loaded != null && matchesDatabase(loaded)) {
+            index = loaded;
+        } else if (loaded != null) {
+            logger.info("Search segment is out of date, rebuilding from the database");
+        }
+        
+        int indexed = catchUp(index.getMaxBlogId());
+        if (indexed > 0) {
+            writeSegment();
+        }
+        logger.info("Search index ready: {} blogs ({} indexed from the database) in {} ms",
+                index.size(), indexed, System.currentTimeMillis() - start);
+    }
+    
+    public void index(Blog blog) {
+        index.index(blog.getId(), termFrequencies(blog));
+        dirty.set(true);
+        compactIfNeeded();
+    }
+    
+    public void remove(Long blogId) {
+        index.remove(blogId);
+        dirty.set(true);
+        compactIfNeeded();
+    }
+    
+    public List<SearchHit> search(String query, int offset, int limit) {
+        return index.search(TextAnalyzer.analyze(query), offset, limit);
+    }
+    
+    @PreDestroy
+    public void flush() {
+        compactor.shutdownNow();
+        if (dirty.get()) {
+            writeSegment();
+        }
+    }
+    
+    /**
+     * Schedules at most one compaction at a time. A compaction that loses a race
+     * with a concurrent update is retried a few times, and after that by the next
+     * update that finds the index over the threshold.
+     */
+    private void compactIfNeeded() {
+        if (index.tombstonedFraction() <= compactionThreshold || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compactor.execute(() -> {
+                try {
+                    InvertedIndex current = index;
+                    long start = System.currentTimeMillis();
+                    for (int attempt = 0; attempt < MAX_COMPACTION_ATTEMPTS; attempt++) {
+                        if (current.compact()) {
+                            logger.debug("Search index compacted to {} blogs in {} ms", current.size(), System.currentTimeMillis() - start);
+                            break;
+                        }
+                    }
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the segment write drops the tombstones anyway
+            compacting.set(false);
+        }
+    }
+    
+    private Map<String, Integer> termFrequencies(Blog blog) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, blog.getTitle(), TITLE_WEIGHT);
+        if (blog.getTags() != null) {
+            for (String tag : blog.getTags()) {
+                addTerms(frequencies, tag, TAG_WEIGHT);
+            }
+        }
+        addTerms(frequencies, blog.getContent(), CONTENT_WEIGHT);
+        return frequencies;
+    }
+    
+    private void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : TextAnalyzer.analyze(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+    
+    /**
+     * Indexes every blog with an id above the given one, walking the table in
+     * id order one batch (and one short transaction) at a time.
+     */
+    private int catchUp(long afterId) {
+        int total = 0;
+        long lastId = afterId;
+        while (true) {
+            final long from = lastId;
+            List<Long> indexedIds = transactionTemplate.execute(status -> {
+                List<Blog> batch = blogRepository.findBatchAfterId(from, PageRequest.of(0, rebuildBatchSize));
+                for (Blog blog : batch) {
+                    index.index(blog.getId(), termFrequencies(blog));
+                }
+                return batch.stream().map(Blog::getId).toList();
+            });
+            if (indexedIds == null || indexedIds.isEmpty()) {
+                return total;
+            }
+            total += indexedIds.size();
+            lastId = indexedIds.get(indexedIds.size() - 1);
+        }
+    }
+    
+    /**
+     * A segment is only trusted if the database still holds exactly the blogs it
+     * covers; otherwise (e.g. a fresh in-memory H2 database) it is discarded.
+     */
+    private boolean matchesDatabase(InvertedIndex segment) {
+        if (segment.size() == 0) {
+            return segment.getMaxBlogId() == 0;
+        }
+        Long maxId = blogRepository.findMaxId();
+        return maxId != null && maxId >= segment.getMaxBlogId()
+                && blogRepository.countByIdLessThanEqual(segment.getMaxBlogId()) == segment.size();
+    }
+    
+    private InvertedIndex readSegment() {
+        Path path = Paths.get(segmentPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return InvertedIndex.readSegment(in);
+        } catch (IOException e) {
+            logger.warn("Could not read search segment {}, rebuilding from the database: {}", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    private synchronized void writeSegment() {
+        Path path = Paths.get(segmentPath);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                index.writeSegment(out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty.set(false);
+        } catch (IOException e) {
+            logger.error("Failed to write search segment {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.contextblog.service.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ * 
+ * Every indexed document gets a dense ordinal. Re-indexing a blog tombstones its
+ * old ordinal instead of rewriting posting lists, and each posting list counts its
+ * live documents, so BM25 document frequencies ignore tombstones. Tombstones are
+ * dropped by {@link #compact()}, which the owner calls once
+ * {@link #tombstonedFraction()} grows too large, and whenever the index is written
+ * as a segment. Readers share a read lock, so searches run concurrently and only
+ * block while a document is being added or a compacted copy is swapped in.
+ */
+public class InvertedIndex {
+    private static final int SEGMENT_MAGIC = 0x424C4958; // "BLIX"
+    private static final int SEGMENT_VERSION = 1;
+    
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, PostingList> postings = new HashMap<>();
+    private Map<Long, Integer> ordinalByBlogId = new HashMap<>();
+    private BitSet deleted = new BitSet();
+    private long[] blogIds = new long[64];
+    private int[] lengths = new int[64];
+    // Posting lists each live document appears in, to update their live counts on removal
+    private PostingList[][] termsByDoc = new PostingList[64][];
+    private int docCount;
+    private int liveCount;
+    private long totalLength;
+    private long maxBlogId;
+    // Bumped by every change, so compact() can tell whether its copy is still current
+    private long modCount;
+    
+    /**
+     * Adds or replaces a document. Term frequencies are already weighted per field by the caller.
+     */
+    public void index(long blogId, Map<String, Integer> termFrequencies) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(blogId);
+            
+            int ordinal = docCount++;
+            if (ordinal == blogIds.length) {
+                blogIds = Arrays.copyOf(blogIds, ordinal * 2);
+                lengths = Arrays.copyOf(lengths, ordinal * 2);
+                termsByDoc = Arrays.copyOf(termsByDoc, ordinal * 2);
+            }
+            
+            int length = 0;
+            PostingList[] terms = new PostingList[termFrequencies.size()];
+            int t = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                PostingList list = postings.computeIfAbsent(entry.getKey(), term -> new PostingList());
+                list.add(ordinal, entry.getValue());
+                terms[t++] = list;
+                length += entry.getValue();
+            }
+            
+            blogIds[ordinal] = blogId;
+            lengths[ordinal] = length;
+            termsByDoc[ordinal] = terms;
+            ordinalByBlogId.put(blogId, ordinal);
+            liveCount++;
+            totalLength += length;
+            maxBlogId = Math.max(maxBlogId, blogId);
+            modCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(long blogId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(blogId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeLocked(long blogId) {
+        Integer ordinal = ordinalByBlogId.remove(blogId);
+        if (ordinal != null) {
+            deleted.set(ordinal);
+            liveCount--;
+            totalLength -= lengths[ordinal];
+            for (PostingList list : termsByDoc[ordinal]) {
+                list.tombstone();
+            }
+            termsByDoc[ordinal] = null;
+            modCount++;
+        }
+    }
+    
+    /**
+     * Ranks live documents against the analyzed query terms and returns the
+     * requested slice, best match first.
+     */
+    public List<SearchHit> search(List<String> queryTerms, int offset, int limit) {
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return Collections.emptyList();
+            }
+            float avgLength = (float) totalLength / liveCount;
+            Map<Integer, Float> scores = new HashMap<>();
+            
+            for (String term : queryTerms.stream().distinct().toList()) {
+                PostingList list = postings.get(term);
+                if (list == null || list.liveSize() == 0) {
+                    continue;
+                }
+                int df = list.liveSize();
+                float idf = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size(); i++) {
+                    int doc = list.doc(i);
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    float tf = list.freq(i);
+                    float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    scores.merge(doc, idf * tf * (K1 + 1) / (tf + norm), Float::sum);
+                }
+            }
+            
+            int wanted = offset + limit;
+            PriorityQueue<Map.Entry<Integer, Float>> top = new PriorityQueue<>(wanted + 1, Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+            
+            List<SearchHit> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Integer, Float> entry = top.poll();
+                ranked.add(new SearchHit(blogIds[entry.getKey()], entry.getValue()));
+            }
+            Collections.reverse(ranked);
+            return offset >= ranked.size() ? Collections.emptyList() : ranked.subList(offset, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            PostingList list = postings.get(term);
+            return list == null ? 0 : list.liveSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Share of ordinals that belong to removed or re-indexed documents.
+     */
+    public double tombstonedFraction() {
+        lock.readLock().lock();
+        try {
+            return docCount == 0 ? 0 : (double) (docCount - liveCount) / docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Drops tombstoned ordinals and their postings. The compacted copy is built
+     * under the read lock, so searches keep running while it is assembled; only
+     * the swap takes the write lock. Returns false without changing anything if
+     * a document was added or removed in between, since the copy would miss it.
+     */
+    public boolean compact() {
+        InvertedIndex compacted;
+        long seen;
+        lock.readLock().lock();
+        try {
+            seen = modCount;
+            compacted = compactedCopy();
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (modCount != seen) {
+                return false;
+            }
+            postings = compacted.postings;
+            ordinalByBlogId = compacted.ordinalByBlogId;
+            deleted = compacted.deleted;
+            blogIds = compacted.blogIds;
+            lengths = compacted.lengths;
+            termsByDoc = compacted.termsByDoc;
+            docCount = compacted.docCount;
+            modCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Live documents renumbered without holes; liveCount, totalLength and maxBlogId carry over unchanged
+    private InvertedIndex compactedCopy() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : next++;
+        }
+        
+        InvertedIndex copy = new InvertedIndex();
+        int capacity = Math.max(64, next);
+        copy.blogIds = new long[capacity];
+        copy.lengths = new int[capacity];
+        copy.termsByDoc = new PostingList[capacity][];
+        for (int doc = 0; doc < docCount; doc++) {
+            int target = remap[doc];
+            if (target >= 0) {
+                copy.blogIds[target] = blogIds[doc];
+                copy.lengths[target] = lengths[doc];
+                copy.termsByDoc[target] = new PostingList[termsByDoc[doc].length];
+                copy.ordinalByBlogId.put(blogIds[doc], target);
+            }
+        }
+        copy.docCount = next;
+        
+        int[] filled = new int[next];
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            PostingList list = entry.getValue();
+            if (list.liveSize() == 0) {
+                continue;
+            }
+            PostingList live = new PostingList(list.liveSize());
+            for (int i = 0; i < list.size(); i++) {
+                int doc = remap[list.doc(i)];
+                if (doc >= 0) {
+                    live.add(doc, list.freq(i));
+                    copy.termsByDoc[doc][filled[doc]++] = live;
+                }
+            }
+            copy.postings.put(entry.getKey(), live);
+        }
+        return copy;
+    }
+    
+    public long getMaxBlogId() {
+        lock.readLock().lock();
+        try {
+            return maxBlogId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Writes live documents only, renumbering ordinals so the segment has no holes.
+     */
+    public void writeSegment(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                remap[doc] = deleted.get(doc) ? -1 : next++;
+            }
+            
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(SEGMENT_VERSION);
+            out.writeLong(maxBlogId);
+            out.writeInt(next);
+            for (int doc = 0; doc < docCount; doc++) {
+                if (remap[doc] >= 0) {
+                    out.writeLong(blogIds[doc]);
+                    out.writeInt(lengths[doc]);
+                }
+            }
+            
+            out.writeInt(postings.size());
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                PostingList list = entry.getValue();
+                int live = 0;
+                for (int i = 0; i < list.size(); i++) {
+                    if (remap[list.doc(i)] >= 0) {
+                        live++;
+                    }
+                }
+                out.writeUTF(entry.getKey());
+                out.writeInt(live);
+                for (int i = 0; i < list.size(); i++) {
+                    int doc = remap[list.doc(i)];
+                    if (doc >= 0) {
+                        out.writeInt(doc);
+                        out.writeInt(list.freq(i));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public static InvertedIndex readSegment(DataInputStream in) throws IOException {
+        if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION) {
+            throw new IOException("Not a blog search segment or unsupported version");
+        }
+        
+        InvertedIndex index = new InvertedIndex();
+        index.maxBlogId = in.readLong();
+        int docs = in.readInt();
+        index.blogIds = new long[Math.max(64, docs)];
+        index.lengths = new int[Math.max(64, docs)];
+        index.termsByDoc = new PostingList[Math.max(64, docs)][];
+        for (int doc = 0; doc < docs; doc++) {
+            index.blogIds[doc] = in.readLong();
+            index.lengths[doc] = in.readInt();
+            index.ordinalByBlogId.put(index.blogIds[doc], doc);
+            index.totalLength += index.lengths[doc];
+        }
+        index.docCount = docs;
+        index.liveCount = docs;
+        
+        int terms = in.readInt();
+        int[] termCounts = new int[docs];
+        for (int t = 0; t < terms; t++) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            PostingList list = new PostingList(size);
+            for (int i = 0; i < size; i++) {
+                int doc = in.readInt();
+                list.add(doc, in.readInt());
+                termCounts[doc]++;
+            }
+            index.postings.put(term, list);
+        }
+        
+        for (int doc = 0; doc < docs; doc++) {
+            index.termsByDoc[doc] = new PostingList[termCounts[doc]];
+        }
+        for (PostingList list : index.postings.values()) {
+            for (int i = 0; i < list.size(); i++) {
+                int doc = list.doc(i);
+                index.termsByDoc[doc][--termCounts[doc]] = list;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,57 @@
+package com.contextblog.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable (document ordinal, term frequency) pairs for a single term.
+ * Ordinals are appended in increasing order, so the list stays sorted for free.
+ * Tombstoned documents keep their postings until the index is compacted, so the
+ * number of live documents (the term's document frequency) is tracked apart.
+ */
+final class PostingList {
+    private int[] docs;
+    private int[] freqs;
+    private int size;
+    private int liveSize;
+    
+    PostingList() {
+        this(4);
+    }
+    
+    PostingList(int capacity) {
+        docs = new int[Math.max(1, capacity)];
+        freqs = new int[Math.max(1, capacity)];
+    }
+    
+    void add(int doc, int freq) {
+        if (size == docs.length) {
+            int capacity = docs.length + (docs.length >> 1) + 1;
+            docs = Arrays.copyOf(docs, capacity);
+            freqs = Arrays.copyOf(freqs, capacity);
+        }
+        docs[size] = doc;
+        freqs[size] = freq;
+        size++;
+        liveSize++;
+    }
+    
+    void tombstone() {
+        liveSize--;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int liveSize() {
+        return liveSize;
+    }
+    
+    int doc(int i) {
+        return docs[i];
+    }
+    
+    int freq(int i) {
+        return freqs[i];
+    }
+}
@@ -0,0 +1,3 @@
+package com.contextblog.service.search;
+
+public record SearchHit(Long blogId, float score) {}
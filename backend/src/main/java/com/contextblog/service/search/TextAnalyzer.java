@@ -0,0 +1,108 @@
+package com.contextblog.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns free text into index terms: lower-cases, splits on anything that is not
+ * a letter or digit, drops stop words and applies a light English suffix stemmer.
+ * 
+ * The same analyzer must be used for indexing and querying, otherwise terms
+ * like "caching" and "caches" would not meet at "cach".
+ */
+public final class TextAnalyzer {
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "been", "but", "by", "can", "could", "did", "do", "does",
+        "for", "from", "had", "has", "have", "he", "her", "his", "i", "if", "in", "into", "is", "it", "its",
+        "may", "might", "must", "no", "not", "of", "on", "or", "our", "she", "should", "so", "such", "than",
+        "that", "the", "their", "them", "then", "there", "these", "they", "this", "those", "to", "was", "we",
+        "were", "what", "when", "which", "who", "will", "with", "would", "you", "your"
+    );
+    
+    private TextAnalyzer() {
+    }
+    
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                addTerm(terms, current);
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            addTerm(terms, current);
+        }
+        return terms;
+    }
+    
+    private static void addTerm(List<String> terms, StringBuilder token) {
+        if (token.length() < MIN_TERM_LENGTH || token.length() > MAX_TERM_LENGTH) {
+            return;
+        }
+        String word = token.toString();
+        if (STOP_WORDS.contains(word)) {
+            return;
+        }
+        terms.add(stem(word));
+    }
+    
+    /**
+     * Light suffix stripping in the spirit of the S-stemmer and the first steps of
+     * Porter: plurals, -ing, -ed and -ly. Cheap, and good enough for blog search.
+     */
+    static String stem(String word) {
+        if (word.length() <= 3 || Character.isDigit(word.charAt(0))) {
+            return word;
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("es") && word.length() > 4 && isSibilant(word.charAt(word.length() - 3))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        if (word.endsWith("ing") && word.length() > 5) {
+            return undouble(word.substring(0, word.length() - 3));
+        }
+        if (word.endsWith("ed") && word.length() > 4) {
+            return undouble(word.substring(0, word.length() - 2));
+        }
+        if (word.endsWith("ly") && word.length() > 4) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("e") && word.length() > 3) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+    
+    private static boolean isSibilant(char c) {
+        return c == 's' || c == 'x' || c == 'z' || c == 'h';
+    }
+    
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n > 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,184 @@
+package com.contextblog.service.similarity;
+
+import com.contextblog.model.Blog;
+import com.contextblog.repository.BlogRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content similarity between blogs using local hashed TF embeddings.
+ * 
+ * Vectors are computed once per blog and appended to a memory-mapped store, so
+ * they survive restarts; the HNSW graph over them is rebuilt in memory on
+ * startup. Queries never touch the blogs table.
+ */
+@Service
+public class BlogSimilarityService {
+    private static final Logger logger = LoggerFactory.getLogger(BlogSimilarityService.class);
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${blog.similarity.vector-path:data/vectors/blogs.vec}")
+    private String vectorPath;
+    
+    @Value("${blog.similarity.dimensions:256}")
+    private int dimensions;
+    
+    @Value("${blog.similarity.hnsw.max-connections:16}")
+    private int maxConnections;
+    
+    @Value("${blog.similarity.hnsw.ef-construction:100}")
+    private int efConstruction;
+    
+    @Value("${blog.similarity.hnsw.ef-search:64}")
+    private int efSearch;
+    
+    @Value("${blog.search.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+    
+    private final Map<Long, Integer> ordinalByBlogId = new ConcurrentHashMap<>();
+    private HashedEmbedder embedder;
+    private MappedVectorStore store;
+    private volatile HnswIndex graph;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void loadIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        embedder = new HashedEmbedder(dimensions);
+        store = MappedVectorStore.open(Paths.get(vectorPath), dimensions);
+        
+        long maxStoredId = 0;
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            maxStoredId = Math.max(maxStoredId, store.blogId(ordinal));
+        }
+        if (store.size() > 0 && !matchesDatabase(maxStoredId, store.size())) {
+            logger.info("Vector store is out of date, re-embedding blogs from the database");
+            store.clear();
+            maxStoredId = 0;
+        }
+        
+        HnswIndex rebuilt = new HnswIndex(store, maxConnections, efConstruction);
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            ordinalByBlogId.put(store.blogId(ordinal), ordinal);
+            rebuilt.add(ordinal);
+        }
+        graph = rebuilt;
+        
+        int embedded = catchUp(maxStoredId);
+        logger.info("Similarity index ready: {} vectors ({} embedded from the database) in {} ms",
+                graph.size(), embedded, System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * Embeds and links a new blog. Blog text does not change after publishing, so
+     * a blog that already has a vector is left alone.
+     */
+    public synchronized void index(Blog blog) {
+        if (graph == null || ordinalByBlogId.containsKey(blog.getId())) {
+            return;
+        }
+        try {
+            int ordinal = store.append(blog.getId(), embed(blog.getTitle(), blog.getContent()));
+            graph.add(ordinal);
+            ordinalByBlogId.put(blog.getId(), ordinal);
+        } catch (IOException | RuntimeException e) {
+            // The blog is saved either way; indexing is retried the next time its recommendations are requested
+            logger.error("Failed to store vector for blog {}: {}", blog.getId(), e.getMessage());
+        }
+    }
+    
+    public boolean contains(Long blogId) {
+        return ordinalByBlogId.containsKey(blogId);
+    }
+    
+    /**
+     * Ids of the blogs most similar to an indexed blog, excluding itself.
+     */
+    public List<Long> findSimilar(Long blogId, int limit) {
+        Integer ordinal = ordinalByBlogId.get(blogId);
+        if (ordinal == null || graph == null) {
+            return List.of();
+        }
+        return nearest(store.vector(ordinal), limit, blogId);
+    }
+    
+    /**
+     * Ids of the blogs most similar to arbitrary text, e.g. an unsaved draft.
+     */
+    public List<Long> findSimilar(String title, String content, int limit) {
+        if (graph == null) {
+            return List.of();
+        }
+        return nearest(embed(title, content), limit, null);
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+    
+    private List<Long> nearest(float[] query, int limit, Long excludeId) {
+        List<Long> ids = new ArrayList<>(limit);
+        for (HnswIndex.Candidate candidate : graph.search(query, limit + 1, efSearch)) {
+            long id = store.blogId(candidate.node());
+            if (excludeId == null || id != excludeId) {
+                ids.add(id);
+            }
+            if (ids.size() == limit) {
+                break;
+            }
+        }
+        return ids;
+    }
+    
+    private float[] embed(String title, String content) {
+        return embedder.embed(title, content);
+    }
+    
+    private boolean matchesDatabase(long maxStoredId, int storedCount) {
+        Long maxId = blogRepository.findMaxId();
+        return maxId != null && maxId >= maxStoredId
+                && blogRepository.countByIdLessThanEqual(maxStoredId) == storedCount;
+    }
+    
+    private int catchUp(long afterId) {
+        int total = 0;
+        long lastId = afterId;
+        while (true) {
+            final long from = lastId;
+            List<Long> embeddedIds = transactionTemplate.execute(status -> {
+                List<Blog> batch = blogRepository.findBatchAfterId(from, PageRequest.of(0, rebuildBatchSize));
+                batch.forEach(this::index);
+                return batch.stream().map(Blog::getId).toList();
+            });
+            if (embeddedIds == null || embeddedIds.isEmpty()) {
+                return total;
+            }
+            total += embeddedIds.size();
+            lastId = embeddedIds.get(embeddedIds.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.contextblog.service.similarity;
+
+import com.contextblog.service.search.TextAnalyzer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local text embedding using the hashing trick: every analyzed term is hashed
+ * into one of {@code dimensions} buckets with a pseudo-random sign and weighted
+ * by sublinear TF. Vectors are L2-normalized, so cosine similarity is a plain
+ * dot product. No network or model files are needed.
+ * 
+ * The weighting depends on the blog's own text only. Vectors are stored once
+ * and never re-embedded, so a corpus-wide factor such as IDF would weight the
+ * same term differently in old and new vectors as the corpus grows.
+ */
+public final class HashedEmbedder {
+    private static final int TITLE_WEIGHT = 2;
+    
+    private final int dimensions;
+    
+    public HashedEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+    
+    public int dimensions() {
+        return dimensions;
+    }
+    
+    public float[] embed(String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TextAnalyzer.analyze(title)) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : TextAnalyzer.analyze(content)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        
+        float[] vector = new float[dimensions];
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int hash = murmur3(entry.getKey());
+            int bucket = Math.floorMod(hash, dimensions);
+            float sign = (hash & 0x80000000) == 0 ? 1f : -1f;
+            double weight = 1 + Math.log(entry.getValue());
+            vector[bucket] += sign * (float) weight;
+        }
+        
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+    
+    // 32-bit MurmurHash3 over the UTF-8 bytes; stable across JVMs, unlike String.hashCode mixing
+    static int murmur3(String term) {
+        byte[] data = term.getBytes(StandardCharsets.UTF_8);
+        int h = 0x9747b28c;
+        int i = 0;
+        for (; i + 4 <= data.length; i += 4) {
+            int k = (data[i] & 0xff) | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff) << 16 | (data[i + 3] & 0xff) << 24;
+            h ^= mixK(k);
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        switch (data.length - i) {
+            case 3:
+                k ^= (data[i + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[i + 1] & 0xff) << 8;
+            case 1:
+                k ^= data[i] & 0xff;
+                h ^= mixK(k);
+            default:
+                break;
+        }
+        h ^= data.length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+}
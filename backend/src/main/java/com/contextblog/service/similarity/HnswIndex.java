@@ -0,0 +1,209 @@
+package com.contextblog.service.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin) over the
+ * vectors of a {@link MappedVectorStore}. Nodes are store ordinals; similarity
+ * is the dot product of normalized vectors, i.e. cosine.
+ * 
+ * Only the adjacency lists live on the heap. Inserts take the write lock,
+ * queries share the read lock.
+ */
+final class HnswIndex {
+    private final MappedVectorStore vectors;
+    private final int maxConnections;
+    private final int maxConnectionsLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // links[node][level] = {count, neighbour_1, ..., neighbour_count}
+    private int[][][] links = new int[1024][][];
+    private int nodeCount;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    
+    HnswIndex(MappedVectorStore vectors, int maxConnections, int efConstruction) {
+        this.vectors = vectors;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLayer0 = maxConnections * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxConnections);
+    }
+    
+    /**
+     * Links the vector at {@code node} (a store ordinal) into the graph. Nodes must be added in ordinal order.
+     */
+    void add(int node) {
+        lock.writeLock().lock();
+        try {
+            float[] query = vectors.vector(node);
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            
+            if (node >= links.length) {
+                links = Arrays.copyOf(links, Math.max(node + 1, links.length * 2));
+            }
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[(l == 0 ? maxConnectionsLayer0 : maxConnections) + 1];
+            }
+            nodeCount = Math.max(nodeCount, node + 1);
+            
+            if (entryPoint < 0) {
+                entryPoint = node;
+                topLevel = level;
+                return;
+            }
+            
+            int current = entryPoint;
+            for (int l = topLevel; l > level; l--) {
+                current = greedyClosest(query, current, l);
+            }
+            
+            for (int l = Math.min(level, topLevel); l >= 0; l--) {
+                List<Candidate> nearest = searchLayer(query, current, efConstruction, l);
+                int limit = l == 0 ? maxConnectionsLayer0 : maxConnections;
+                List<Candidate> selected = nearest.subList(0, Math.min(maxConnections, nearest.size()));
+                for (Candidate neighbour : selected) {
+                    connect(node, neighbour.node, l, limit);
+                    connect(neighbour.node, node, l, limit);
+                }
+                current = nearest.get(0).node;
+            }
+            
+            if (level > topLevel) {
+                topLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Approximate top-k by cosine similarity, best first.
+     */
+    List<Candidate> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int l = topLevel; l > 0; l--) {
+                current = greedyClosest(query, current, l);
+            }
+            List<Candidate> nearest = searchLayer(query, current, Math.max(ef, k), 0);
+            return nearest.subList(0, Math.min(k, nearest.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int size() {
+        return nodeCount;
+    }
+    
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = vectors.dot(current, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float similarity = vectors.dot(neighbours[i], query);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Beam search on one layer; returns up to {@code ef} candidates, most similar first.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodeCount);
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>((a, b) -> Float.compare(b.similarity, a.similarity));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(a.similarity, b.similarity));
+        
+        Candidate first = new Candidate(start, vectors.dot(start, query));
+        visited.set(start);
+        toVisit.add(first);
+        results.add(first);
+        
+        while (!toVisit.isEmpty()) {
+            Candidate candidate = toVisit.poll();
+            if (results.size() >= ef && candidate.similarity < results.peek().similarity) {
+                break;
+            }
+            int[][] nodeLinks = links[candidate.node];
+            if (level >= nodeLinks.length) {
+                continue;
+            }
+            int[] neighbours = nodeLinks[level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float similarity = vectors.dot(neighbour, query);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Candidate next = new Candidate(neighbour, similarity);
+                    toVisit.add(next);
+                    results.add(next);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort((a, b) -> Float.compare(b.similarity, a.similarity));
+        return ordered;
+    }
+    
+    /**
+     * Adds {@code to} to the adjacency list of {@code from}; when the list is full
+     * the least similar neighbour is evicted if the new one is closer.
+     */
+    private void connect(int from, int to, int level, int limit) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        if (count < limit) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+        float[] base = vectors.vector(from);
+        int worst = -1;
+        float worstSimilarity = vectors.dot(to, base);
+        for (int i = 1; i <= count; i++) {
+            float similarity = vectors.dot(neighbours[i], base);
+            if (similarity < worstSimilarity) {
+                worstSimilarity = similarity;
+                worst = i;
+            }
+        }
+        if (worst > 0) {
+            neighbours[worst] = to;
+        }
+    }
+    
+    record Candidate(int node, float similarity) {}
+}
@@ -0,0 +1,185 @@
+package com.contextblog.service.similarity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only float32 vector store in a memory-mapped file.
+ * 
+ * Layout: a 16 byte header (magic, dimensions, count, format version) followed
+ * by fixed-size records of {blogId: long, vector: float[dimensions]}. Vectors
+ * live outside the Java heap and the OS page cache keeps hot ones resident. The
+ * record count is written after the record itself, so a crash never exposes a
+ * half-written vector.
+ * 
+ * A single mapping is limited to 2 GB, so records are mapped in segments of at
+ * most {@link #MAX_SEGMENT_BYTES}; only the last segment is remapped as the
+ * store grows, and file positions are computed as longs.
+ */
+final class MappedVectorStore implements Closeable {
+    private static final int MAGIC = 0x424C5643; // "BLVC"
+    // Bumped whenever the embedding changes, so older vectors are discarded and re-embedded
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    
+    private final FileChannel channel;
+    private final int dimensions;
+    private final int recordBytes;
+    private final int segmentRecords;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] segments;
+    private volatile int count;
+    // Records the last segment is currently mapped for
+    private int lastSegmentCapacity;
+    
+    private MappedVectorStore(FileChannel channel, int dimensions, int count, int maxSegmentBytes) throws IOException {
+        this.channel = channel;
+        this.dimensions = dimensions;
+        this.recordBytes = Long.BYTES + dimensions * Float.BYTES;
+        this.segmentRecords = Math.max(1, maxSegmentBytes / recordBytes);
+        this.count = count;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        
+        int fullSegments = count / segmentRecords;
+        int remainder = count % segmentRecords;
+        MappedByteBuffer[] mapped = new MappedByteBuffer[fullSegments + 1];
+        for (int segment = 0; segment < fullSegments; segment++) {
+            mapped[segment] = mapSegment(segment, segmentRecords);
+        }
+        lastSegmentCapacity = Math.min(segmentRecords, Math.max(INITIAL_CAPACITY, remainder * 2));
+        mapped[fullSegments] = mapSegment(fullSegments, lastSegmentCapacity);
+        this.segments = mapped;
+    }
+    
+    /**
+     * Opens an existing store, or creates an empty one if the file is missing,
+     * unreadable or was written with a different dimension or format version.
+     */
+    static MappedVectorStore open(Path path, int dimensions) throws IOException {
+        return open(path, dimensions, MAX_SEGMENT_BYTES);
+    }
+    
+    // Smaller segments let tests cross segment boundaries without writing gigabytes
+    static MappedVectorStore open(Path path, int dimensions, int maxSegmentBytes) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int recordBytes = Long.BYTES + dimensions * Float.BYTES;
+        
+        int count = 0;
+        if (channel.size() >= HEADER_BYTES) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == dimensions && header.getInt(12) == FORMAT_VERSION) {
+                count = header.getInt(8);
+            }
+        }
+        long available = Math.max(0, channel.size() - HEADER_BYTES) / recordBytes;
+        count = (int) Math.max(0, Math.min(count, available));
+        
+        MappedVectorStore store = new MappedVectorStore(channel, dimensions, count, maxSegmentBytes);
+        store.header.putInt(0, MAGIC);
+        store.header.putInt(4, dimensions);
+        store.header.putInt(8, count);
+        store.header.putInt(12, FORMAT_VERSION);
+        return store;
+    }
+    
+    int size() {
+        return count;
+    }
+    
+    synchronized int append(long blogId, float[] vector) throws IOException {
+        if (count == Integer.MAX_VALUE) {
+            throw new IOException("Vector store is full (" + count + " vectors)");
+        }
+        int ordinal = count;
+        int segment = ordinal / segmentRecords;
+        int slot = ordinal % segmentRecords;
+        if (segment == segments.length) {
+            // The previous segment is full; start the next one small
+            lastSegmentCapacity = Math.min(segmentRecords, INITIAL_CAPACITY);
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+            grown[segment] = mapSegment(segment, lastSegmentCapacity);
+            segments = grown;
+        } else if (slot == lastSegmentCapacity) {
+            lastSegmentCapacity = (int) Math.min(segmentRecords, 2L * lastSegmentCapacity);
+            MappedByteBuffer[] remapped = segments.clone();
+            remapped[segment] = mapSegment(segment, lastSegmentCapacity);
+            segments = remapped;
+        }
+        
+        MappedByteBuffer target = segments[segment];
+        int position = slot * recordBytes;
+        target.putLong(position, blogId);
+        for (int i = 0; i < dimensions; i++) {
+            target.putFloat(position + Long.BYTES + i * Float.BYTES, vector[i]);
+        }
+        header.putInt(8, ordinal + 1);
+        count = ordinal + 1;
+        return ordinal;
+    }
+    
+    /**
+     * Drops every record; used when the file no longer matches the database.
+     */
+    synchronized void clear() {
+        count = 0;
+        header.putInt(8, 0);
+    }
+    
+    long blogId(int ordinal) {
+        return segment(ordinal).getLong(position(ordinal));
+    }
+    
+    float dot(int ordinal, float[] query) {
+        MappedByteBuffer source = segment(ordinal);
+        int base = position(ordinal) + Long.BYTES;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += source.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+    
+    float[] vector(int ordinal) {
+        MappedByteBuffer source = segment(ordinal);
+        int base = position(ordinal) + Long.BYTES;
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = source.getFloat(base + i * Float.BYTES);
+        }
+        return vector;
+    }
+    
+    private MappedByteBuffer segment(int ordinal) {
+        return segments[ordinal / segmentRecords];
+    }
+    
+    // Within the ordinal's segment, which is at most MAX_SEGMENT_BYTES long
+    private int position(int ordinal) {
+        return (ordinal % segmentRecords) * recordBytes;
+    }
+    
+    private MappedByteBuffer mapSegment(int segment, int records) throws IOException {
+        long start = HEADER_BYTES + (long) segment * segmentRecords * recordBytes;
+        return channel.map(FileChannel.MapMode.READ_WRITE, start, (long) records * recordBytes);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,93 @@
+package com.contextblog.service.social;
+
+import com.contextblog.repository.FollowRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory adjacency lists of the follow graph: for each user, the sorted ids
+ * of their followers and of the users they follow.
+ * 
+ * Lists are {@link FollowIdList}s: sorted {@code long[]} chunks with 8 bytes per
+ * edge and no boxing or hashing overhead, membership by binary search, and
+ * id-ordered pages by slicing. They are loaded on first use by streaming one
+ * id-only query straight into chunks, and bounded by the total number of ids held
+ * ({@code max-ids}), so a few huge accounts evict many small ones rather than
+ * exhausting the heap. Follows and unfollows patch cached lists copy-on-write once
+ * their transaction commits, copying only the chunk that changed; readers never
+ * see a list change.
+ */
+@Component
+public class FollowGraphCache {
+    
+    @Autowired
+    private FollowRepository followRepository;
+    
+    @Value("${blog.follows.graph-cache.max-ids:5000000}")
+    private long maxIds;
+    
+    private LoadingCache<Long, FollowIdList> followers;
+    private LoadingCache<Long, FollowIdList> following;
+    
+    @PostConstruct
+    public void init() {
+        followers = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((Long userId, FollowIdList ids) -> ids.size() + 1)
+                .build(userId -> load(followRepository::forEachFollowerId, userId));
+        following = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((Long userId, FollowIdList ids) -> ids.size() + 1)
+                .build(userId -> load(followRepository::forEachFollowingId, userId));
+    }
+    
+    public FollowIdList followersOf(Long userId) {
+        return followers.get(userId);
+    }
+    
+    public FollowIdList followingOf(Long userId) {
+        return following.get(userId);
+    }
+    
+    public boolean isFollowing(Long followerId, Long followingId) {
+        return followingOf(followerId).contains(followingId);
+    }
+    
+    /**
+     * Applies a follow (or unfollow) to cached lists after the current transaction
+     * commits, immediately when there is none. Lists not in the cache are left alone
+     * and will be loaded fresh.
+     */
+    public void followChanged(Long followerId, Long followingId, boolean added) {
+        // Both updates are idempotent, since a list loaded after the commit already reflects the change
+        Runnable apply = () -> {
+            followers.asMap().computeIfPresent(followingId, (id, ids) -> added ? ids.with(followerId) : ids.without(followerId));
+            following.asMap().computeIfPresent(followerId, (id, ids) -> added ? ids.with(followingId) : ids.without(followingId));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+    
+    private static FollowIdList load(BiConsumer<Long, LongConsumer> query, Long userId) {
+        FollowIdList.Builder builder = new FollowIdList.Builder();
+        query.accept(userId, builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.contextblog.service.social;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted set of user ids stored in fixed-size {@code long[]} chunks.
+ * 
+ * Adding or removing an id copies only the chunk it falls in (plus the array of
+ * chunk references), so a follow on an account with millions of followers costs
+ * a few kilobytes instead of a copy of the whole list. Chunks hold up to
+ * {@link #CHUNK_SIZE} ids when built and are split once an insert doubles that.
+ */
+public final class FollowIdList {
+    static final int CHUNK_SIZE = 1024;
+    
+    private static final long[][] NO_CHUNKS = new long[0][];
+    public static final FollowIdList EMPTY = new FollowIdList(NO_CHUNKS, 0);
+    
+    private final long[][] chunks;
+    private final int size;
+    
+    private FollowIdList(long[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean contains(long id) {
+        if (size == 0) {
+            return false;
+        }
+        return Arrays.binarySearch(chunks[chunkOf(id)], id) >= 0;
+    }
+    
+    /**
+     * Up to {@code limit} ids greater than {@code afterId} (null for the first page), ascending.
+     */
+    public long[] page(Long afterId, int limit) {
+        if (size == 0 || limit <= 0) {
+            return new long[0];
+        }
+        int chunk = 0;
+        int from = 0;
+        if (afterId != null) {
+            chunk = chunkOf(afterId);
+            int position = Arrays.binarySearch(chunks[chunk], afterId);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        
+        long[] page = new long[Math.min(limit, size)];
+        int filled = 0;
+        for (; chunk < chunks.length && filled < page.length; chunk++, from = 0) {
+            int count = Math.min(chunks[chunk].length - from, page.length - filled);
+            System.arraycopy(chunks[chunk], from, page, filled, count);
+            filled += count;
+        }
+        return filled == page.length ? page : Arrays.copyOf(page, filled);
+    }
+    
+    /**
+     * This list with {@code id} added; the same instance if it is already present.
+     */
+    public FollowIdList with(long id) {
+        if (size == 0) {
+            return new FollowIdList(new long[][] { { id } }, 1);
+        }
+        int index = chunkOf(id);
+        long[] chunk = chunks[index];
+        int position = Arrays.binarySearch(chunk, id);
+        if (position >= 0) {
+            return this;
+        }
+        int at = -position - 1;
+        long[] grown = new long[chunk.length + 1];
+        System.arraycopy(chunk, 0, grown, 0, at);
+        grown[at] = id;
+        System.arraycopy(chunk, at, grown, at + 1, chunk.length - at);
+        
+        if (grown.length <= 2 * CHUNK_SIZE) {
+            long[][] copy = chunks.clone();
+            copy[index] = grown;
+            return new FollowIdList(copy, size + 1);
+        }
+        long[][] copy = new long[chunks.length + 1][];
+        System.arraycopy(chunks, 0, copy, 0, index);
+        copy[index] = Arrays.copyOfRange(grown, 0, CHUNK_SIZE);
+        copy[index + 1] = Arrays.copyOfRange(grown, CHUNK_SIZE, grown.length);
+        System.arraycopy(chunks, index + 1, copy, index + 2, chunks.length - index - 1);
+        return new FollowIdList(copy, size + 1);
+    }
+    
+    /**
+     * This list without {@code id}; the same instance if it is not present.
+     */
+    public FollowIdList without(long id) {
+        if (size == 0) {
+            return this;
+        }
+        int index = chunkOf(id);
+        long[] chunk = chunks[index];
+        int at = Arrays.binarySearch(chunk, id);
+        if (at < 0) {
+            return this;
+        }
+        if (chunk.length == 1) {
+            long[][] copy = new long[chunks.length - 1][];
+            System.arraycopy(chunks, 0, copy, 0, index);
+            System.arraycopy(chunks, index + 1, copy, index, chunks.length - index - 1);
+            return new FollowIdList(copy, size - 1);
+        }
+        long[] shrunk = new long[chunk.length - 1];
+        System.arraycopy(chunk, 0, shrunk, 0, at);
+        System.arraycopy(chunk, at + 1, shrunk, at, chunk.length - at - 1);
+        long[][] copy = chunks.clone();
+        copy[index] = shrunk;
+        return new FollowIdList(copy, size - 1);
+    }
+    
+    // Last chunk whose first id is <= id, or the first chunk when id is smaller than all of them
+    private int chunkOf(long id) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunks[mid][0] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Collects ids arriving in ascending order straight into chunks, without an
+     * intermediate list of boxed values.
+     */
+    public static final class Builder {
+        private long[][] chunks = new long[4][];
+        private int chunkCount;
+        private long[] current = new long[CHUNK_SIZE];
+        private int filled;
+        private int size;
+        
+        public void add(long id) {
+            if (filled == CHUNK_SIZE) {
+                flush();
+            }
+            current[filled++] = id;
+            size++;
+        }
+        
+        public FollowIdList build() {
+            if (filled > 0) {
+                flush();
+            }
+            return size == 0 ? EMPTY : new FollowIdList(Arrays.copyOf(chunks, chunkCount), size);
+        }
+        
+        private void flush() {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = filled == CHUNK_SIZE ? current : Arrays.copyOf(current, filled);
+            current = new long[CHUNK_SIZE];
+            filled = 0;
+        }
+    }
+}
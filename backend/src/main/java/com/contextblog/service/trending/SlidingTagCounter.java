@@ -0,0 +1,149 @@
+package com.contextblog.service.trending;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Tag frequencies over sliding time windows.
+ * 
+ * Counts are kept in a ring of hourly buckets covering the longest bounded
+ * window, plus one running total per window. When the clock moves into a new
+ * hour, buckets that fall out of a window are subtracted from its total, so
+ * neither adding a blog nor sliding the window ever rescans history. The top-k
+ * per window is recomputed only after a change and cached in between, which
+ * makes a read O(k).
+ */
+final class SlidingTagCounter {
+    private final int ringHours = TagWindow.WEEK.getHours();
+    private final int topK;
+    private final List<Map<String, Long>> buckets = new ArrayList<>(ringHours);
+    private final Map<TagWindow, Map<String, Long>> totals = new EnumMap<>(TagWindow.class);
+    private final Map<TagWindow, Map<String, Long>> topCache = new EnumMap<>(TagWindow.class);
+    private long currentHour;
+    
+    SlidingTagCounter(int topK, long currentHour) {
+        this.topK = topK;
+        this.currentHour = currentHour;
+        for (int i = 0; i < ringHours; i++) {
+            buckets.add(new HashMap<>());
+        }
+        for (TagWindow window : TagWindow.values()) {
+            totals.put(window, new HashMap<>());
+        }
+    }
+    
+    synchronized void add(String tag, long hour, long delta) {
+        advanceTo(hour);
+        apply(totals.get(TagWindow.ALL_TIME), tag, delta);
+        long age = currentHour - hour;
+        if (age < ringHours) {
+            apply(buckets.get(slot(hour)), tag, delta);
+            for (TagWindow window : TagWindow.values()) {
+                if (window != TagWindow.ALL_TIME && age < window.getHours()) {
+                    apply(totals.get(window), tag, delta);
+                }
+            }
+        }
+        topCache.clear();
+    }
+    
+    /**
+     * Adds counts that predate every bounded window, so only the all-time total sees them.
+     */
+    synchronized void addAllTime(String tag, long delta) {
+        apply(totals.get(TagWindow.ALL_TIME), tag, delta);
+        topCache.clear();
+    }
+    
+    synchronized Map<String, Long> top(TagWindow window, long nowHour, int limit) {
+        if (advanceTo(nowHour)) {
+            topCache.clear();
+        }
+        Map<String, Long> top = topCache.computeIfAbsent(window, w -> computeTop(totals.get(w)));
+        if (limit >= top.size()) {
+            return top;
+        }
+        Map<String, Long> slice = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            if (slice.size() == limit) {
+                break;
+            }
+            slice.put(entry.getKey(), entry.getValue());
+        }
+        return slice;
+    }
+    
+    /**
+     * Moves the clock forward, expiring buckets hour by hour. Returns whether anything changed.
+     */
+    private boolean advanceTo(long hour) {
+        if (hour <= currentHour) {
+            return false;
+        }
+        if (hour - currentHour >= ringHours) {
+            buckets.forEach(Map::clear);
+            for (TagWindow window : TagWindow.values()) {
+                if (window != TagWindow.ALL_TIME) {
+                    totals.get(window).clear();
+                }
+            }
+            currentHour = hour;
+            return true;
+        }
+        while (currentHour < hour) {
+            currentHour++;
+            for (TagWindow window : TagWindow.values()) {
+                if (window == TagWindow.ALL_TIME) {
+                    continue;
+                }
+                // The bucket that just became window.hours old leaves this window
+                Map<String, Long> expired = buckets.get(slot(currentHour - window.getHours()));
+                Map<String, Long> total = totals.get(window);
+                expired.forEach((tag, count) -> apply(total, tag, -count));
+            }
+            buckets.get(slot(currentHour)).clear();
+        }
+        return true;
+    }
+    
+    private Map<String, Long> computeTop(Map<String, Long> counts) {
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(topK + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            heap.offer(Map.entry(entry.getKey(), entry.getValue()));
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> ordered = new ArrayList<>(heap);
+        ordered.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> top = new LinkedHashMap<>();
+        ordered.forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return Collections.unmodifiableMap(top);
+    }
+    
+    /**
+     * Earliest hour still inside the ring as of {@code hour}.
+     */
+    static long oldestRingHour(long hour) {
+        return hour - TagWindow.WEEK.getHours() + 1;
+    }
+    
+    private int slot(long hour) {
+        return (int) Math.floorMod(hour, (long) ringHours);
+    }
+    
+    private static void apply(Map<String, Long> counts, String tag, long delta) {
+        long updated = counts.getOrDefault(tag, 0L) + delta;
+        if (updated <= 0) {
+            counts.remove(tag);
+        } else {
+            counts.put(tag, updated);
+        }
+    }
+}
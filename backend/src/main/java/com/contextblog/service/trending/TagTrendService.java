@@ -0,0 +1,105 @@
+package com.contextblog.service.trending;
+
+import com.contextblog.model.Blog;
+import com.contextblog.model.dto.TagCount;
+import com.contextblog.model.dto.TagCreatedCount;
+import com.contextblog.repository.BlogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trending tags kept up to date incrementally instead of scanning every blog.
+ * 
+ * Blog creation and removal feed a {@link SlidingTagCounter}. On startup its
+ * all-time totals are seeded with one GROUP BY tag over blogs older than the
+ * longest sliding window, and only the blogs inside that window are read per
+ * (tag, created at), bucketed into hours here so startup and live updates share
+ * one hour numbering.
+ */
+@Service
+public class TagTrendService {
+    private static final Logger logger = LoggerFactory.getLogger(TagTrendService.class);
+    private static final long SECONDS_PER_HOUR = 3600;
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Value("${blog.trending-tags.max-limit:50}")
+    private int maxLimit;
+    
+    private volatile SlidingTagCounter counter;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long hour = currentHour();
+        SlidingTagCounter rebuilt = new SlidingTagCounter(maxLimit, hour);
+        LocalDateTime since = LocalDateTime.ofEpochSecond(SlidingTagCounter.oldestRingHour(hour) * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+        
+        List<TagCount> older = blogRepository.countTagsCreatedBefore(since);
+        for (TagCount row : older) {
+            rebuilt.addAllTime(row.tag(), row.count());
+        }
+        List<TagCreatedCount> recent = blogRepository.countTagsByCreatedAtSince(since);
+        for (TagCreatedCount row : recent) {
+            rebuilt.add(row.tag(), hourOf(row.createdAt()), row.count());
+        }
+        counter = rebuilt;
+        logger.info("Trending tags rebuilt from {} tag totals and {} recent (tag, created at) groups in {} ms",
+                older.size(), recent.size(), System.currentTimeMillis() - start);
+    }
+    
+    public void blogCreated(Blog blog) {
+        adjust(blog.getTags(), blog.getCreatedAt(), 1);
+    }
+    
+    public void blogRemoved(Blog blog) {
+        adjust(blog.getTags(), blog.getCreatedAt(), -1);
+    }
+    
+    /**
+     * Moves a blog's contribution from its old tags to its current ones, e.g. after AI enrichment.
+     */
+    public void tagsReplaced(Blog blog, List<String> previousTags) {
+        adjust(previousTags, blog.getCreatedAt(), -1);
+        adjust(blog.getTags(), blog.getCreatedAt(), 1);
+    }
+    
+    public Map<String, Long> getTrendingTags(TagWindow window, int limit) {
+        SlidingTagCounter current = counter;
+        if (current == null) {
+            return Map.of();
+        }
+        return current.top(window, currentHour(), Math.max(1, Math.min(limit, maxLimit)));
+    }
+    
+    private void adjust(List<String> tags, LocalDateTime createdAt, long delta) {
+        SlidingTagCounter current = counter;
+        if (current == null || tags == null) {
+            return;
+        }
+        long hour = createdAt != null ? hourOf(createdAt) : currentHour();
+        for (String tag : tags) {
+            current.add(tag, hour, delta);
+        }
+    }
+    
+    // Stored timestamps are read as UTC wall clock, whatever the database session's time zone
+    private static long hourOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+    
+    private static long currentHour() {
+        return hourOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,31 @@
+package com.contextblog.service.trending;
+
+/**
+ * Time windows the trending-tags endpoint can be asked for.
+ */
+public enum TagWindow {
+    DAY("24h", 24),
+    WEEK("7d", 24 * 7),
+    ALL_TIME("all", Integer.MAX_VALUE);
+    
+    private final String code;
+    private final int hours;
+    
+    TagWindow(String code, int hours) {
+        this.code = code;
+        this.hours = hours;
+    }
+    
+    public int getHours() {
+        return hours;
+    }
+    
+    public static TagWindow fromCode(String code) {
+        for (TagWindow window : values()) {
+            if (window.code.equalsIgnoreCase(code) || window.name().equalsIgnoreCase(code)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Unknown window: " + code + " (use 24h, 7d or all)");
+    }
+}
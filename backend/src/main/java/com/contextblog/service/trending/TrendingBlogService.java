@@ -0,0 +1,188 @@
+package com.contextblog.service.trending;
+
+import com.contextblog.model.Blog;
+import com.contextblog.model.dto.BlogEngagement;
+import com.contextblog.repository.BlogRepository;
+import com.contextblog.service.counter.BlogCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trending blogs ranked by a gravity (time-decay) score, Hacker News style:
+ * 
+ *   score = (likes + commentWeight * comments) / (ageHours + 2) ^ gravity
+ * 
+ * Engagement of recent blogs is tracked in memory and updated from like and
+ * comment events. A bounded leaderboard of ids is kept ready for reads and
+ * patched on every event; a periodic re-rank applies decay and drops blogs that
+ * left the window, and a slower reconciliation reloads counts from the database
+ * so any drift (e.g. from rolled back transactions) heals itself.
+ */
+@Service
+public class TrendingBlogService {
+    private static final Logger logger = LoggerFactory.getLogger(TrendingBlogService.class);
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Autowired
+    private BlogCounterService blogCounterService;
+    
+    @Value("${blog.trending.size:10}")
+    private int size;
+    
+    @Value("${blog.trending.window-days:7}")
+    private int windowDays;
+    
+    @Value("${blog.trending.gravity:1.8}")
+    private double gravity;
+    
+    @Value("${blog.trending.comment-weight:1.0}")
+    private double commentWeight;
+    
+    // Guarded by this; the leaderboard is published for lock-free reads
+    private final Map<Long, Engagement> candidates = new HashMap<>();
+    private volatile List<Long> leaderboard = List.of();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${blog.trending.reconcile-interval-ms:600000}",
+               fixedDelayString = "${blog.trending.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        // Counts as of the start of the database read, to carry over events that arrive during it
+        Map<Long, Engagement> before;
+        synchronized (this) {
+            before = new HashMap<>();
+            candidates.forEach((id, engagement) -> before.put(id, engagement.copy()));
+        }
+        
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+        Map<Long, Engagement> fresh = new HashMap<>();
+        for (BlogEngagement row : blogRepository.findEngagementSince(since)) {
+            // Stored counts plus likes and comments not flushed to the database yet
+            int likes = (int) (row.likeCount() + blogCounterService.pendingLikes(row.id()));
+            int comments = (int) (row.commentCount() + blogCounterService.pendingComments(row.id()));
+            fresh.put(row.id(), new Engagement(row.createdAt(), likes, comments));
+        }
+        
+        synchronized (this) {
+            candidates.forEach((id, live) -> {
+                Engagement seen = before.get(id);
+                Engagement reloaded = fresh.get(id);
+                if (seen == null) {
+                    // Created while the database was read
+                    fresh.putIfAbsent(id, live);
+                } else if (reloaded != null) {
+                    reloaded.likes += live.likes - seen.likes;
+                    reloaded.comments += live.comments - seen.comments;
+                }
+            });
+            candidates.clear();
+            candidates.putAll(fresh);
+            rerank();
+        }
+        logger.debug("Trending leaderboard reconciled against {} recent blogs", fresh.size());
+    }
+    
+    /**
+     * Full re-rank of the tracked window; decay changes the order even without new events.
+     */
+    @Scheduled(fixedDelayString = "${blog.trending.rerank-interval-ms:60000}")
+    public synchronized void rerank() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusDays(windowDays);
+        candidates.values().removeIf(engagement -> engagement.createdAt.isBefore(cutoff));
+        leaderboard = rank(candidates.keySet(), now);
+    }
+    
+    public synchronized void blogCreated(Blog blog) {
+        LocalDateTime createdAt = blog.getCreatedAt() != null ? blog.getCreatedAt() : LocalDateTime.now();
+        candidates.put(blog.getId(), new Engagement(createdAt, 0, 0));
+        promote(blog.getId());
+    }
+    
+    public synchronized void likeChanged(Long blogId, int delta) {
+        Engagement engagement = candidates.get(blogId);
+        if (engagement != null) {
+            engagement.likes += delta;
+            promote(blogId);
+        }
+    }
+    
+    public synchronized void commentAdded(Long blogId) {
+        Engagement engagement = candidates.get(blogId);
+        if (engagement != null) {
+            engagement.comments++;
+            promote(blogId);
+        }
+    }
+    
+    /**
+     * Ids of the current top blogs, best first. Reads the precomputed leaderboard only.
+     */
+    public List<Long> getTrendingBlogIds() {
+        return leaderboard;
+    }
+    
+    /**
+     * Re-ranks only the current leaderboard plus the blog whose score just changed.
+     */
+    private void promote(Long blogId) {
+        Set<Long> contenders = new LinkedHashSet<>(leaderboard);
+        contenders.add(blogId);
+        leaderboard = rank(contenders, LocalDateTime.now());
+    }
+    
+    private record Ranked(Long id, double score, LocalDateTime createdAt) {
+    }
+    
+    private List<Long> rank(Set<Long> ids, LocalDateTime now) {
+        List<Ranked> ranked = new ArrayList<>();
+        for (Long id : ids) {
+            Engagement engagement = candidates.get(id);
+            if (engagement != null) {
+                ranked.add(new Ranked(id, score(engagement, now), engagement.createdAt));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(Ranked::score).reversed()
+                .thenComparing(Ranked::createdAt, Comparator.reverseOrder()));
+        return ranked.stream().limit(size).map(Ranked::id).toList();
+    }
+    
+    private double score(Engagement engagement, LocalDateTime now) {
+        double ageHours = Math.max(0, Duration.between(engagement.createdAt, now).toMinutes() / 60.0);
+        double points = Math.max(0, engagement.likes) + commentWeight * Math.max(0, engagement.comments);
+        return points / Math.pow(ageHours + 2, gravity);
+    }
+    
+    private static final class Engagement {
+        private final LocalDateTime createdAt;
+        private int likes;
+        private int comments;
+        
+        private Engagement(LocalDateTime createdAt, int likes, int comments) {
+            this.createdAt = createdAt;
+            this.likes = likes;
+            this.comments = comments;
+        }
+        
+        private Engagement copy() {
+            return new Engagement(createdAt, likes, comments);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.contextblog.config;
+
+import com.contextblog.model.Blog;
+import com.contextblog.model.Bookmark;
+import com.contextblog.model.Comment;
+import com.contextblog.model.Follow;
+import com.contextblog.model.User;
+import com.contextblog.repository.BlogRepository;
+import com.contextblog.repository.BookmarkRepository;
+import com.contextblog.repository.CommentRepository;
+import com.contextblog.repository.FollowRepository;
+import com.contextblog.repository.UserRepository;
+import com.contextblog.service.similarity.BlogSimilarityService;
+import com.contextblog.service.trending.TrendingBlogService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements each list endpoint issues. The fixture puts
+ * several authors, tags, comments and follows behind every list, so a query per
+ * row (N+1) pushes an endpoint over its budget and fails the build instead of
+ * only logging a warning from {@link QueryBudgetFilter}.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:querybudget",
+    "openai.api.key=test-key",
+    "openai.api.base-url=http://127.0.0.1:1",
+    "blog.search.segment-path=target/test-data/search/blogs.seg",
+    "blog.similarity.vector-path=target/test-data/vectors/blogs.vec",
+    "ai.cache.disk.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListEndpointQueryBudgetTest {
+    
+    private static final int AUTHORS = 4;
+    private static final int BLOGS_PER_AUTHOR = 5;
+    private static final int COMMENTS_PER_BLOG = 6;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private QueryCounter queryCounter;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BlogRepository blogRepository;
+    
+    @Autowired
+    private CommentRepository commentRepository;
+    
+    @Autowired
+    private FollowRepository followRepository;
+    
+    @Autowired
+    private BookmarkRepository bookmarkRepository;
+    
+    @Autowired
+    private BlogSimilarityService blogSimilarityService;
+    
+    @Autowired
+    private TrendingBlogService trendingBlogService;
+    
+    private final List<User> authors = new ArrayList<>();
+    private final List<Blog> blogs = new ArrayList<>();
+    
+    @BeforeAll
+    void seed() {
+        for (int a = 0; a < AUTHORS; a++) {
+            User author = new User();
+            author.setUsername("author" + a);
+            author.setEmail("author" + a + "@example.com");
+            author.setPassword("unused");
+            authors.add(userRepository.save(author));
+        }
+        for (User author : authors) {
+            for (int b = 0; b < BLOGS_PER_AUTHOR; b++) {
+                Blog blog = new Blog();
+                blog.setTitle(author.getUsername() + " post " + b);
+                blog.setContent("Content of " + author.getUsername() + " post " + b);
+                blog.setSummary("Summary " + b);
+                blog.setTags(new ArrayList<>(List.of("java", "spring", "tag" + b)));
+                blog.setAuthor(author);
+                blogs.add(blogRepository.save(blog));
+                blogSimilarityService.index(blog);
+            }
+        }
+        for (Blog blog : blogs) {
+            for (int c = 0; c < COMMENTS_PER_BLOG; c++) {
+                Comment comment = new Comment();
+                comment.setContent("Comment " + c);
+                comment.setUser(authors.get(c % AUTHORS));
+                comment.setBlog(blog);
+                commentRepository.save(comment);
+            }
+        }
+        for (User follower : authors) {
+            for (User following : authors) {
+                if (follower != following) {
+                    Follow follow = new Follow();
+                    follow.setFollower(follower);
+                    follow.setFollowing(following);
+                    followRepository.save(follow);
+                }
+            }
+        }
+        for (Blog blog : blogs) {
+            Bookmark bookmark = new Bookmark();
+            bookmark.setUser(authors.get(0));
+            bookmark.setBlog(blog);
+            bookmarkRepository.save(bookmark);
+        }
+        // Saved straight through the repositories, so the startup reconciliation never saw them
+        trendingBlogService.reconcile();
+    }
+    
+    @Test
+    void allBlogs() throws Exception {
+        assertWithinBudget(get("/api/blogs"), "$", 20, 2);
+    }
+    
+    @Test
+    void feed() throws Exception {
+        assertWithinBudget(get("/api/blogs/feed").param("size", "10"), "$.items", 10, 2);
+    }
+    
+    @Test
+    void myBlogs() throws Exception {
+        assertWithinBudget(get("/api/blogs/user/my-blogs").with(user(authors.get(1).getUsername())), "$", 5, 2);
+    }
+    
+    @Test
+    void trending() throws Exception {
+        assertWithinBudget(get("/api/blogs/trending"), "$", 10, 2);
+    }
+    
+    @Test
+    void recommendations() throws Exception {
+        assertWithinBudget(get("/api/blogs/{id}/recommendations", blogs.get(0).getId()), "$", 5, 2);
+    }
+    
+    @Test
+    void comments() throws Exception {
+        assertWithinBudget(get("/api/blogs/{id}/comments", blogs.get(2).getId()), "$.items", COMMENTS_PER_BLOG, 1);
+    }
+    
+    @Test
+    void followers() throws Exception {
+        assertWithinBudget(get("/api/users/{id}/followers/list", authors.get(0).getId())
+                .with(user(authors.get(1).getUsername())), "$.items", AUTHORS - 1, 2);
+    }
+    
+    @Test
+    void following() throws Exception {
+        assertWithinBudget(get("/api/users/{id}/following/list", authors.get(0).getId())
+                .with(user(authors.get(1).getUsername())), "$.items", AUTHORS - 1, 2);
+    }
+    
+    @Test
+    void bookmarks() throws Exception {
+        assertWithinBudget(get("/api/users/bookmarks").with(user(authors.get(0).getUsername())), "$", blogs.size(), 3);
+    }
+    
+    /**
+     * Budgets are the statement counts of the current implementation; the size check
+     * keeps an empty response from passing trivially.
+     */
+    private void assertWithinBudget(RequestBuilder request, String listPath, int expectedSize, int budget) throws Exception {
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(listPath, hasSize(expectedSize)));
+        // MockMvc runs the request on this thread, so the filter's count is still readable here
+        assertThat(queryCounter.count()).as("SQL statements issued").isLessThanOrEqualTo(budget);
+    }
+}
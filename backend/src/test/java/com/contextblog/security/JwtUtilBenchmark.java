@@ -0,0 +1,67 @@
+package com.contextblog.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying a token on the request path, for tokens carrying a
+ * {@code kid} and for legacy tokens without one. Runs on several threads since
+ * every request thread shares the one parser.
+ * 
+ * Not picked up by {@code mvn test}; run {@link #main} from the IDE, or with
+ * {@code mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * "-Dexec.args=-cp %classpath com.contextblog.security.JwtUtilBenchmark"}
+ * (exec:java would leave the forked benchmark JVM without the test classpath).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtUtilBenchmark {
+    
+    private JwtUtil jwtUtil;
+    private String rotatedToken;
+    private String legacyToken;
+    
+    @Setup
+    public void setUp() {
+        UserDetails alice = User.withUsername("alice").password("unused").authorities(List.of()).build();
+        jwtUtil = JwtUtilTest.jwtUtil(JwtUtilTest.SECRET, JwtUtilTest.KEYS, "2026");
+        rotatedToken = jwtUtil.generateToken(alice);
+        legacyToken = JwtUtilTest.jwtUtil(JwtUtilTest.SECRET, "", "").generateToken(alice);
+    }
+    
+    @Benchmark
+    public ParsedToken parseRotatedToken() {
+        return jwtUtil.parse(rotatedToken);
+    }
+    
+    @Benchmark
+    public ParsedToken parseLegacyToken() {
+        return jwtUtil.parse(legacyToken);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.contextblog.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Key rotation in {@link JwtUtil}: which key signs new tokens and which tokens
+ * still verify after the active key changes.
+ */
+class JwtUtilTest {
+    
+    static final String SECRET = "legacy-secret-legacy-secret-legacy-secret";
+    static final String KEYS = "2025:first-rotated-secret-first-rotated-secret,"
+            + "2026:second-rotated-secret-second-rotated-secret";
+    
+    private static final UserDetails ALICE = User.withUsername("alice").password("unused").authorities(List.of()).build();
+    
+    @Test
+    void tokensSignedWithAnEarlierKeyVerifyAfterRotation() {
+        JwtUtil before = jwtUtil(SECRET, KEYS, "2025");
+        JwtUtil after = jwtUtil(SECRET, KEYS, "2026");
+        
+        String oldToken = before.generateToken(ALICE);
+        String newToken = after.generateToken(ALICE);
+        
+        ParsedToken oldParsed = after.parse(oldToken);
+        assertThat(oldParsed.keyId()).isEqualTo("2025");
+        assertThat(after.validateToken(oldParsed, ALICE)).isTrue();
+        assertThat(after.parse(newToken).keyId()).isEqualTo("2026");
+    }
+    
+    @Test
+    void tokensWithAnUnknownKeyIdAreRejected() {
+        JwtUtil issuer = jwtUtil(SECRET, "retired:retired-secret-retired-secret-retired-secret", "retired");
+        JwtUtil verifier = jwtUtil(SECRET, KEYS, "2026");
+        
+        String token = issuer.generateToken(ALICE);
+        
+        assertThatThrownBy(() -> verifier.parse(token))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("retired");
+    }
+    
+    @Test
+    void legacyTokensWithoutKeyIdVerifyAgainstTheSecret() {
+        JwtUtil legacy = jwtUtil(SECRET, "", "");
+        JwtUtil rotated = jwtUtil(SECRET, KEYS, "2026");
+        
+        String token = legacy.generateToken(ALICE);
+        
+        ParsedToken parsed = rotated.parse(token);
+        assertThat(parsed.keyId()).isNull();
+        assertThat(parsed.subject()).isEqualTo("alice");
+        assertThat(rotated.validateToken(parsed, ALICE)).isTrue();
+    }
+    
+    @Test
+    void legacyTokensSignedWithAnotherSecretAreRejected() {
+        String token = jwtUtil("some-other-secret-some-other-secret-some-other", "", "").generateToken(ALICE);
+        
+        assertThatThrownBy(() -> jwtUtil(SECRET, KEYS, "2026").parse(token)).isInstanceOf(JwtException.class);
+    }
+    
+    static JwtUtil jwtUtil(String secret, String keys, String activeKeyId) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "additionalKeys", keys);
+        ReflectionTestUtils.setField(jwtUtil, "activeKeyId", activeKeyId);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
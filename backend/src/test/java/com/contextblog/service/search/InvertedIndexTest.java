@@ -0,0 +1,78 @@
+package com.contextblog.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * In-memory compaction of {@link InvertedIndex}: dropping tombstones must not
+ * change what a search returns, and the index must keep accepting updates.
+ */
+class InvertedIndexTest {
+    
+    private static final List<String> QUERY = List.of("java", "spring", "cache");
+    
+    @Test
+    void compactionDropsTombstonesWithoutChangingResults() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 50; id++) {
+            index.index(id, terms(id));
+        }
+        // Re-index half the blogs (as enrichment does) and remove a few
+        for (long id = 1; id <= 25; id++) {
+            index.index(id, Map.of("java", 2, "enriched", 1, "tag" + id, 2));
+        }
+        for (long id = 40; id <= 45; id++) {
+            index.remove(id);
+        }
+        List<SearchHit> before = index.search(QUERY, 0, 100);
+        int javaFrequency = index.documentFrequency("java");
+        assertThat(index.tombstonedFraction()).isGreaterThan(0.3);
+        
+        assertThat(index.compact()).isTrue();
+        
+        assertThat(index.tombstonedFraction()).isZero();
+        assertThat(index.size()).isEqualTo(44);
+        assertThat(index.documentFrequency("java")).isEqualTo(javaFrequency);
+        // Ordinals change, so equal scores may come back in another order
+        assertThat(index.search(QUERY, 0, 100)).containsExactlyInAnyOrderElementsOf(before);
+    }
+    
+    @Test
+    void compactedIndexKeepsAcceptingUpdates() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 100; id++) {
+            index.index(id, terms(id));
+            index.index(id, terms(id));
+        }
+        index.compact();
+        
+        index.index(101, Map.of("java", 5));
+        index.remove(1);
+        index.index(2, Map.of("unrelated", 1));
+        
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.search(List.of("java"), 0, 1)).extracting(SearchHit::blogId).containsExactly(101L);
+        assertThat(index.search(List.of("unrelated"), 0, 10)).extracting(SearchHit::blogId).containsExactly(2L);
+        assertThat(index.search(QUERY, 0, 200)).extracting(SearchHit::blogId).doesNotContain(1L, 2L);
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeSegment(new DataOutputStream(bytes));
+        InvertedIndex reloaded = InvertedIndex.readSegment(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(reloaded.search(QUERY, 0, 200)).containsExactlyInAnyOrderElementsOf(index.search(QUERY, 0, 200));
+    }
+    
+    private static Map<String, Integer> terms(long id) {
+        return id % 3 == 0
+                ? Map.of("java", 1, "cache", 3, "post" + id, 1)
+                : Map.of("spring", 2, "java", 1, "post" + id, 1);
+    }
+}
@@ -0,0 +1,127 @@
+package com.contextblog.service.similarity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records of {@link MappedVectorStore} that straddle segment boundaries. The
+ * segment size is shrunk to a few records, so the boundaries a production store
+ * only reaches after a gigabyte are crossed here after a handful of appends.
+ */
+class MappedVectorStoreTest {
+    
+    private static final int DIMENSIONS = 4;
+    private static final int RECORD_BYTES = Long.BYTES + DIMENSIONS * Float.BYTES;
+    private static final int RECORDS_PER_SEGMENT = 5;
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void recordsOnBothSidesOfSegmentBoundariesReadBack() throws IOException {
+        try (MappedVectorStore store = open(dir.resolve("blogs.vec"))) {
+            for (int ordinal = 0; ordinal < 23; ordinal++) {
+                assertThat(store.append(blogId(ordinal), vector(ordinal))).isEqualTo(ordinal);
+            }
+            
+            assertThat(store.size()).isEqualTo(23);
+            for (int ordinal : new int[] { 0, 4, 5, 9, 10, 14, 15, 19, 20, 22 }) {
+                assertRecord(store, ordinal);
+            }
+        }
+    }
+    
+    @Test
+    void reopenedStoreKeepsRecordsAndAppendsIntoTheNextSegment() throws IOException {
+        Path path = dir.resolve("blogs.vec");
+        try (MappedVectorStore store = open(path)) {
+            // Exactly two full segments, so the next append starts a new one after reopening
+            for (int ordinal = 0; ordinal < 2 * RECORDS_PER_SEGMENT; ordinal++) {
+                store.append(blogId(ordinal), vector(ordinal));
+            }
+        }
+        
+        try (MappedVectorStore store = open(path)) {
+            assertThat(store.size()).isEqualTo(2 * RECORDS_PER_SEGMENT);
+            for (int ordinal = 10; ordinal < 17; ordinal++) {
+                assertThat(store.append(blogId(ordinal), vector(ordinal))).isEqualTo(ordinal);
+            }
+            for (int ordinal = 0; ordinal < 17; ordinal++) {
+                assertRecord(store, ordinal);
+            }
+        }
+    }
+    
+    @Test
+    void lastSegmentGrowsPastItsInitialMapping() throws IOException {
+        Path path = dir.resolve("blogs.vec");
+        try (MappedVectorStore store = MappedVectorStore.open(path, DIMENSIONS)) {
+            for (int ordinal = 0; ordinal < 3000; ordinal++) {
+                store.append(blogId(ordinal), vector(ordinal));
+            }
+            for (int ordinal : new int[] { 0, 1023, 1024, 2047, 2048, 2999 }) {
+                assertRecord(store, ordinal);
+            }
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(path, DIMENSIONS)) {
+            assertThat(store.size()).isEqualTo(3000);
+            assertRecord(store, 2999);
+        }
+    }
+    
+    @Test
+    void storeWrittenWithOtherDimensionsOpensEmpty() throws IOException {
+        Path path = dir.resolve("blogs.vec");
+        try (MappedVectorStore store = open(path)) {
+            store.append(1, vector(1));
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(path, DIMENSIONS * 2, RECORD_BYTES * 2 * RECORDS_PER_SEGMENT)) {
+            assertThat(store.size()).isZero();
+        }
+    }
+    
+    @Test
+    void storeFromAnEarlierEmbeddingOpensEmpty() throws IOException {
+        Path path = dir.resolve("blogs.vec");
+        try (MappedVectorStore store = open(path)) {
+            store.append(1, vector(1));
+        }
+        // Stores written before the format version existed have zeros in its slot
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), 12);
+        }
+        
+        try (MappedVectorStore store = open(path)) {
+            assertThat(store.size()).isZero();
+        }
+    }
+    
+    private static MappedVectorStore open(Path path) throws IOException {
+        return MappedVectorStore.open(path, DIMENSIONS, RECORDS_PER_SEGMENT * RECORD_BYTES);
+    }
+    
+    private static void assertRecord(MappedVectorStore store, int ordinal) {
+        float[] expected = vector(ordinal);
+        assertThat(store.blogId(ordinal)).as("blog id at %d", ordinal).isEqualTo(blogId(ordinal));
+        assertThat(store.vector(ordinal)).as("vector at %d", ordinal).containsExactly(expected);
+        assertThat(store.dot(ordinal, new float[] { 1, 0, 0, 0 })).isEqualTo(expected[0]);
+    }
+    
+    private static long blogId(int ordinal) {
+        return 1000L + ordinal;
+    }
+    
+    private static float[] vector(int ordinal) {
+        return new float[] { ordinal, -ordinal, ordinal * 0.5f, 1 };
+    }
+}
@@ -19,55 +19,32 @@ function AdminPanel() {
 
   useEffect(() => {
     fetchStats();
-    fetchBlogs();
-    fetchUsers();
+    fetchBlogsAndUsers();
   }, []);
 
   const fetchStats = async () => {
     try {
-      // Fetch all blogs to calculate stats
-      const blogsResponse = await api.get('/blogs');
-      const allBlogs = blogsResponse.data;
-      
-      const totalBlogs = allBlogs.length;
-      const totalComments = allBlogs.reduce((sum, blog) => sum + (blog.commentCount || 0), 0);
-      const totalLikes = allBlogs.reduce((sum, blog) => sum + (blog.likeCount || 0), 0);
+      // Totals are computed by the server over every blog; /blogs only returns the first feed page
+      const response = await api.get('/blogs/stats');
+      const data = response.data;
+      const totalBlogs = data.totalBlogs;
       
       // Calculate averages
-      const avgLikesPerBlog = totalBlogs > 0 ? (totalLikes / totalBlogs).toFixed(2) : 0;
-      const avgCommentsPerBlog = totalBlogs > 0 ? (totalComments / totalBlogs).toFixed(2) : 0;
-      
-      // Blogs this week
-      const oneWeekAgo = new Date();
-      oneWeekAgo.setDate(oneWeekAgo.getDate() - 7);
-      const blogsThisWeek = allBlogs.filter(blog => {
-        const blogDate = new Date(blog.createdAt);
-        return blogDate >= oneWeekAgo;
-      }).length;
+      const avgLikesPerBlog = totalBlogs > 0 ? (data.totalLikes / totalBlogs).toFixed(2) : 0;
+      const avgCommentsPerBlog = totalBlogs > 0 ? (data.totalComments / totalBlogs).toFixed(2) : 0;
       
       // Top tags
-      const tagCounts = {};
-      allBlogs.forEach(blog => {
-        if (blog.tags && Array.isArray(blog.tags)) {
-          blog.tags.forEach(tag => {
-            tagCounts[tag] = (tagCounts[tag] || 0) + 1;
-          });
-        }
-      });
-      const topTags = Object.entries(tagCounts)
-        .sort((a, b) => b[1] - a[1])
-        .slice(0, 5)
+      const topTags = Object.entries(data.topTags || {})
         .map(([tag, count]) => ({ tag, count }));
       
-      // Note: In a real app, you'd have a separate admin endpoint for user stats
       setStats({
         totalBlogs,
-        totalUsers: new Set(allBlogs.map(b => b.author?.id)).size,
-        totalComments,
-        totalLikes,
+        totalUsers: data.totalUsers,
+        totalComments: data.totalComments,
+        totalLikes: data.totalLikes,
         avgLikesPerBlog: parseFloat(avgLikesPerBlog),
         avgCommentsPerBlog: parseFloat(avgCommentsPerBlog),
-        blogsThisWeek,
+        blogsThisWeek: data.blogsThisWeek,
         topTags
       });
     } catch (error) {
@@ -77,27 +54,26 @@ function AdminPanel() {
     }
   };
 
-  const fetchBlogs = async () => {
-    try {
-      const response = await api.get('/blogs');
-      setBlogs(response.data);
-    } catch (error) {
-      console.error('Error fetching blogs:', error);
-    }
-  };
-
-  const fetchUsers = async () => {
+  const fetchBlogsAndUsers = async () => {
     try {
+      // Walk the whole feed page by page, so the tables list every blog
+      const allBlogs = [];
+      let cursor = null;
+      do {
+        const response = await api.get('/blogs/feed', { params: { size: 100, cursor } });
+        allBlogs.push(...response.data.items);
+        cursor = response.data.hasMore ? response.data.nextCursor : null;
+      } while (cursor);
+      setBlogs(allBlogs);
+      
       // Note: In a real app, you'd have an admin endpoint to fetch all users
       // For now, we'll extract unique users from blogs
-      const response = await api.get('/blogs');
-      const allBlogs = response.data;
       const uniqueUsers = Array.from(
         new Map(allBlogs.map(b => [b.author?.id, b.author])).values()
       ).filter(u => u);
       setUsers(uniqueUsers);
     } catch (error) {
-      console.error('Error fetching users:', error);
+      console.error('Error fetching blogs:', error);
     }
   };
 
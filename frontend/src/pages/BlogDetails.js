@@ -10,6 +10,7 @@ function BlogDetails() {
   const { isAuthenticated } = useAuth();
   const [blog, setBlog] = useState(null);
   const [comments, setComments] = useState([]);
+  const [commentsCursor, setCommentsCursor] = useState(null);
   const [newComment, setNewComment] = useState('');
   const [liked, setLiked] = useState(false);
   const [bookmarked, setBookmarked] = useState(false);
@@ -42,19 +43,19 @@ function BlogDetails() {
     }
   };
 
-  const fetchComments = async () => {
+  // Without a cursor the first page replaces the list; with one the next page is appended
+  const fetchComments = async (cursor = null) => {
     try {
-      const response = await api.get(`/blogs/${id}/comments`);
-      // Ensure response.data is an array
-      if (Array.isArray(response.data)) {
-        setComments(response.data);
-      } else {
-        console.error('Invalid response format:', response.data);
-        setComments([]);
-      }
+      const response = await api.get(`/blogs/${id}/comments`, { params: cursor ? { cursor } : {} });
+      const items = Array.isArray(response.data?.items) ? response.data.items : [];
+      setComments((current) => (cursor ? [...current, ...items] : items));
+      setCommentsCursor(response.data?.hasMore ? response.data.nextCursor : null);
     } catch (error) {
       console.error('Error fetching comments:', error);
-      setComments([]);
+      if (!cursor) {
+        setComments([]);
+        setCommentsCursor(null);
+      }
     }
   };
 
@@ -120,9 +121,11 @@ function BlogDetails() {
       return;
     }
     try {
-      const response = await api.post(`/blogs/${id}/like`);
+      const response = liked
+        ? await api.delete(`/blogs/${id}/like`)
+        : await api.put(`/blogs/${id}/like`);
       setLiked(response.data.liked);
-      fetchBlog();
+      setBlog((current) => ({ ...current, likeCount: response.data.likeCount }));
     } catch (error) {
       console.error('Error toggling like:', error);
     }
@@ -336,6 +339,14 @@ function BlogDetails() {
                     </div>
                   ))
                 )}
+                {commentsCursor && (
+                  <button
+                    onClick={() => fetchComments(commentsCursor)}
+                    className="w-full py-2 text-sm text-blue-300 hover:text-blue-200 font-light"
+                  >
+                    Load more comments
+                  </button>
+                )}
               </div>
             </div>
           </div>
@@ -20,6 +20,7 @@ import api from '../services/api';
 function RichContentCreation() {
   const { isAuthenticated } = useAuth();
   const [imagePreview, setImagePreview] = useState(null);
+  const [imageFile, setImageFile] = useState(null);
   const [isAnalyzing, setIsAnalyzing] = useState(false);
   const [imageSummary, setImageSummary] = useState(null);
   const [error, setError] = useState(null);
@@ -45,6 +46,7 @@ function RichContentCreation() {
     
     setError(null);
     setImageSummary(null);
+    setImageFile(file);
     
     // Create preview
     const reader = new FileReader();
@@ -92,8 +94,9 @@ function RichContentCreation() {
     setImageSummary(null);
     
     try {
-      const response = await api.post('/ai/analyze-image', {
-        imageBase64: imagePreview
+      // Send the file itself rather than its base64 data URL (a third smaller, no JSON parsing)
+      const response = await api.post('/ai/analyze-image', imageFile, {
+        headers: { 'Content-Type': imageFile.type || 'application/octet-stream' }
       });
       
       if (response.data && response.data.summary) {
@@ -133,6 +136,7 @@ function RichContentCreation() {
   // Reset image upload
   const handleResetImage = () => {
     setImagePreview(null);
+    setImageFile(null);
     setImageSummary(null);
     setError(null);
     setShowTitleInput(false);
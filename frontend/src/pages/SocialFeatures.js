@@ -12,29 +12,46 @@ import api from '../services/api';
  */
 function SocialFeatures() {
   const [blogs, setBlogs] = useState([]);
+  const [blogsCursor, setBlogsCursor] = useState(null);
+  const [stats, setStats] = useState(null);
   const [loading, setLoading] = useState(true);
   const [selectedFeature, setSelectedFeature] = useState(null);
 
   useEffect(() => {
     fetchBlogs();
+    fetchStats();
   }, []);
 
-  const fetchBlogs = async () => {
+  // One feed page at a time; a cursor continues after the blogs already shown
+  const fetchBlogs = async (cursor = null) => {
     try {
-      const response = await api.get('/blogs');
-      if (Array.isArray(response.data)) {
-        setBlogs(response.data);
-      } else {
-        setBlogs([]);
-      }
+      const response = await api.get('/blogs/feed', { params: { cursor } });
+      const items = Array.isArray(response.data?.items) ? response.data.items : [];
+      setBlogs(prev => (cursor ? [...prev, ...items] : items));
+      setBlogsCursor(response.data?.hasMore ? response.data.nextCursor : null);
     } catch (error) {
       console.error('Error fetching blogs:', error);
-      setBlogs([]);
+      if (!cursor) {
+        setBlogs([]);
+        setBlogsCursor(null);
+      }
     } finally {
       setLoading(false);
     }
   };
 
+  // Site-wide totals, so the counters don't depend on how many feed pages are loaded
+  const fetchStats = async () => {
+    try {
+      const response = await api.get('/blogs/stats');
+      setStats(response.data);
+    } catch (error) {
+      console.error('Error fetching stats:', error);
+    }
+  };
+
+  const totalBlogs = stats ? stats.totalBlogs : blogs.length;
+
   const socialFeatures = [
     {
       id: 'like',
@@ -42,7 +59,7 @@ function SocialFeatures() {
       title: 'Like',
       description: 'Show appreciation',
       color: 'from-red-500 to-pink-500',
-      count: blogs.reduce((sum, blog) => sum + (blog.likeCount || 0), 0)
+      count: stats ? stats.totalLikes : blogs.reduce((sum, blog) => sum + (blog.likeCount || 0), 0)
     },
     {
       id: 'comment',
@@ -50,7 +67,7 @@ function SocialFeatures() {
       title: 'Comment',
       description: 'Share thoughts',
       color: 'from-blue-500 to-cyan-500',
-      count: blogs.reduce((sum, blog) => sum + (blog.commentCount || 0), 0)
+      count: stats ? stats.totalComments : blogs.reduce((sum, blog) => sum + (blog.commentCount || 0), 0)
     },
     {
       id: 'follow',
@@ -58,7 +75,7 @@ function SocialFeatures() {
       title: 'Follow',
       description: 'Stay updated',
       color: 'from-purple-500 to-indigo-500',
-      count: blogs.length
+      count: totalBlogs
     },
     {
       id: 'bookmark',
@@ -66,7 +83,7 @@ function SocialFeatures() {
       title: 'Bookmark',
       description: 'Save for later',
       color: 'from-yellow-500 to-orange-500',
-      count: blogs.length
+      count: totalBlogs
     }
   ];
 
@@ -261,6 +278,14 @@ function SocialFeatures() {
                 </div>
               </Link>
             ))}
+            {blogsCursor && (
+              <button
+                onClick={() => fetchBlogs(blogsCursor)}
+                className="col-span-full py-3 text-sm text-blue-300 hover:text-blue-200 font-light"
+              >
+                Load more blogs
+              </button>
+            )}
           </div>
         ) : (
           <div className="text-center py-20 bg-gray-800/50 rounded-3xl border border-gray-700/50">